@@ -0,0 +1,68 @@
+package com.sanctuary.auth.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    @Param({ "VALID", "EXPIRED" })
+    public TokenState tokenState;
+
+    @Param({ "false", "true" })
+    public boolean stateless;
+
+    private JwtAuthFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = new JwtService(new SimpleMeterRegistry(), new SigningKeyRing(2048));
+        UserDetails user = User.withUsername("testuser").password("unused").roles("USER").build();
+        // Sin base de datos: se mide el filtro, no la consulta del usuario
+        filter = new JwtAuthFilter(jwtService, username -> user, new InMemorySubjectStatusHook(),
+                new TokenDenyList(), new SimpleMeterRegistry());
+        filter.setStateless(stateless);
+        long issuedAt = tokenState == TokenState.VALID
+            ? System.currentTimeMillis()
+            : System.currentTimeMillis() - 2 * JwtService.TOKEN_VALIDITY;
+        authorization = "Bearer " + jwtService.generateToken(user, issuedAt);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/1");
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            // Dentro de la medición: @TearDown(Level.Invocation) añade más coste que el propio filtro
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+}
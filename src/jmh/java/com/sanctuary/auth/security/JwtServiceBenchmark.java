@@ -0,0 +1,69 @@
+package com.sanctuary.auth.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private UserDetails user;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(new SimpleMeterRegistry(), new SigningKeyRing(2048));
+        user = User.withUsername("testuser").password("unused").roles("USER").build();
+    }
+
+    // El parámetro de estado solo aplica a la validación
+    @State(Scope.Benchmark)
+    public static class Tokens {
+        @Param({ "VALID", "EXPIRED" })
+        public TokenState tokenState;
+
+        private String token;
+
+        @Setup
+        public void setUp(JwtServiceBenchmark benchmark) {
+            long issuedAt = tokenState == TokenState.VALID
+                ? System.currentTimeMillis()
+                : System.currentTimeMillis() - 2 * JwtService.TOKEN_VALIDITY;
+            token = benchmark.jwtService.generateToken(benchmark.user, issuedAt);
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    // Un token válido se resuelve desde la caché de verificados; uno expirado se parsea siempre
+    @Benchmark
+    public boolean validateToken(Tokens tokens) {
+        try {
+            return jwtService.validateToken(tokens.token, user);
+        } catch (ExpiredJwtException e) {
+            return false;
+        }
+    }
+}
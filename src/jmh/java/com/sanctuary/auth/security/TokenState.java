@@ -0,0 +1,7 @@
+package com.sanctuary.auth.security;
+
+/** Estado del token con el que se ejecutan los benchmarks de verificación */
+public enum TokenState {
+    VALID,
+    EXPIRED
+}
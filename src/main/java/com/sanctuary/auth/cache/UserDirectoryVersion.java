@@ -0,0 +1,47 @@
+package com.sanctuary.auth.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contador de modificaciones del directorio de usuarios, para responder con
+ * 304 a los listados sin consultar la base. El ETag lleva un identificador de
+ * la instancia porque el contador vuelve a empezar en cada arranque; con varias
+ * instancias cada una valida solo los ETags que emitió ella misma.
+ */
+@Component
+public class UserDirectoryVersion {
+
+    private final String instanceId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong modifications = new AtomicLong();
+
+    /**
+     * ETag (débil) del listado completo. Se lee antes de consultar: si una escritura
+     * termina en medio, la respuesta lleva el ETag anterior y se revalida en la
+     * siguiente petición.
+     */
+    public String etag() {
+        return "W/\"" + instanceId + "-" + modifications.get() + "\"";
+    }
+
+    /**
+     * Registra una alta, cambio o baja. Dentro de una transacción cuenta al
+     * terminar, para que ningún ETag nuevo se asocie a datos sin confirmar.
+     */
+    public void changed() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    modifications.incrementAndGet();
+                }
+            });
+        } else {
+            modifications.incrementAndGet();
+        }
+    }
+}
@@ -21,12 +21,16 @@ public class CorsConfig {
         config.addAllowedMethod("GET");
         config.addAllowedMethod("POST");
         config.addAllowedMethod("PUT");
+        config.addAllowedMethod("PATCH");
         config.addAllowedMethod("DELETE");
         config.addAllowedMethod("OPTIONS");
         
         // Permite todos los encabezados
         config.addAllowedHeader("*");
         
+        // El cliente necesita leer el ETag para enviarlo en If-None-Match o If-Match
+        config.addExposedHeader("ETag");
+        
         // Permite cookies (si las necesitas)
         config.setAllowCredentials(true);
         
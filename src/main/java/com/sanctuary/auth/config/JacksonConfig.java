@@ -0,0 +1,42 @@
+package com.sanctuary.auth.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Serialización de las respuestas. Los clientes internos pueden pedir CBOR
+ * ({@code Accept: application/cbor}) o Smile ({@code application/x-jackson-smile}),
+ * más compactos y baratos de generar que JSON; el resto sigue recibiendo JSON.
+ */
+@Configuration
+public class JacksonConfig {
+
+    // Accesores generados con LambdaMetafactory en lugar de reflexión; Spring Boot lo
+    // registra en todos los ObjectMapper que crea
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    /*
+     * Spring crea por su cuenta los convertidores CBOR y Smile con un ObjectMapper sin
+     * la configuración de Spring Boot. Estos los reemplazan y conservan su posición,
+     * detrás de JSON, que sigue siendo la respuesta para "Accept: * / *".
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,129 @@
+package com.sanctuary.auth.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Escucha el evento JFR {@code jdk.VirtualThreadPinned} mientras el modo de hilos
+ * virtuales está activo y registra dónde quedó fijado el hilo portador, con
+ * prioridad para los marcos del propio servicio de autenticación.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle, DisposableBean, MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.sanctuary.auth.";
+    private static final int MAX_FRAMES = 8;
+
+    private final Duration threshold;
+    private final LongAdder pinnedCount = new LongAdder();
+    private final LongAdder appPinnedCount = new LongAdder();
+    private final LongAccumulator maxPinnedNanos = new LongAccumulator(Math::max, 0);
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(
+            @Value("${auth.virtual-threads.pinning-threshold:PT0.02S}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void start() {
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+        stream = recording;
+        log.info("Monitor de hilos virtuales fijados activo (umbral {} ms)", threshold.toMillis());
+    }
+
+    void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = frames(event.getStackTrace());
+        boolean inApp = frames.stream().anyMatch(VirtualThreadPinningMonitor::isAppFrame);
+        record(event.getDuration(), inApp);
+        String where = frames.stream()
+            .limit(MAX_FRAMES)
+            .map(VirtualThreadPinningMonitor::describe)
+            .collect(Collectors.joining("\n\tat "));
+        if (inApp) {
+            log.warn("Hilo virtual fijado {} ms en el servicio de autenticación:\n\tat {}",
+                event.getDuration().toMillis(), where);
+        } else {
+            log.debug("Hilo virtual fijado {} ms:\n\tat {}", event.getDuration().toMillis(), where);
+        }
+    }
+
+    void record(Duration duration, boolean inApp) {
+        pinnedCount.increment();
+        if (inApp) {
+            appPinnedCount.increment();
+        }
+        maxPinnedNanos.accumulate(duration.toNanos());
+    }
+
+    private static List<RecordedFrame> frames(RecordedStackTrace stackTrace) {
+        return stackTrace != null ? stackTrace.getFrames() : List.of();
+    }
+
+    private static boolean isAppFrame(RecordedFrame frame) {
+        return frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(APP_PACKAGE);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+            + ":" + frame.getLineNumber();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.virtual.threads.pinned", appPinnedCount, LongAdder::sum)
+            .description("Hilos virtuales fijados a su portador por encima del umbral")
+            .tag("location", "app")
+            .register(registry);
+        FunctionCounter.builder("auth.virtual.threads.pinned", this, m -> m.getPinnedCount() - m.getAppPinnedCount())
+            .description("Hilos virtuales fijados a su portador por encima del umbral")
+            .tag("location", "other")
+            .register(registry);
+    }
+
+    public long getPinnedCount() { return pinnedCount.sum(); }
+    public long getAppPinnedCount() { return appPinnedCount.sum(); }
+    public long getMaxPinnedNanos() { return maxPinnedNanos.get(); }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        stream = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+    }
+}
@@ -0,0 +1,52 @@
+package com.sanctuary.auth.controller;
+
+import com.sanctuary.auth.dto.FieldErrorResponse;
+import com.sanctuary.auth.security.HashingCapacityExceededException;
+import com.sanctuary.auth.security.LoginThrottledException;
+import com.sanctuary.auth.services.DuplicateUserException;
+import com.sanctuary.auth.services.InvalidRefreshTokenException;
+import com.sanctuary.auth.services.StaleUserVersionException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    // Rechazo rápido cuando el pool de hashing está saturado
+    @ExceptionHandler(HashingCapacityExceededException.class)
+    public ResponseEntity<String> handleHashingCapacity(HashingCapacityExceededException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    // Intentos agotados para la IP o el usuario; no se llegó a verificar la contraseña
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<String> handleLoginThrottled(LoginThrottledException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    // El insert detectó un campo único duplicado
+    @ExceptionHandler(DuplicateUserException.class)
+    public ResponseEntity<FieldErrorResponse> handleDuplicateUser(DuplicateUserException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new FieldErrorResponse(ex.getField(), ex.getMessage()));
+    }
+
+    // Otra petición modificó el usuario después de que el cliente lo leyera
+    @ExceptionHandler(StaleUserVersionException.class)
+    public ResponseEntity<String> handleStaleUserVersion(StaleUserVersionException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    // El cliente debe volver a iniciar sesión
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<String> handleInvalidRefreshToken(InvalidRefreshTokenException ex) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ex.getMessage());
+    }
+}
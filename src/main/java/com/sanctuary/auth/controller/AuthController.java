@@ -1,15 +1,40 @@
 package com.sanctuary.auth.controller;
 
+import com.sanctuary.auth.cache.UserDirectoryVersion;
 import com.sanctuary.auth.dto.AuthResponse;
+import com.sanctuary.auth.dto.AvailabilityResponse;
+import com.sanctuary.auth.dto.ImportReport;
+import com.sanctuary.auth.dto.IntrospectionRequest;
 import com.sanctuary.auth.dto.LoginRequest;
+import com.sanctuary.auth.dto.RefreshRequest;
 import com.sanctuary.auth.dto.RegisterRequest;
+import com.sanctuary.auth.dto.RevokeRequest;
+import com.sanctuary.auth.dto.TokenIntrospection;
+import com.sanctuary.auth.dto.UserPageResponse;
+import com.sanctuary.auth.dto.UserPatchRequest;
 import com.sanctuary.auth.model.Role;
+import com.sanctuary.auth.security.LoginThrottle;
 import com.sanctuary.auth.services.AuthUserService;
+import com.sanctuary.auth.services.DuplicateUserException;
+import com.sanctuary.auth.services.TokenIntrospectionService;
+import com.sanctuary.auth.services.UserExistenceIndex;
+import com.sanctuary.auth.services.UserExportService;
+import com.sanctuary.auth.services.UserImportService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.sanctuary.auth.dto.UserShowRequest;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import java.util.Optional;
@@ -22,34 +47,196 @@ public class AuthController {
     @Autowired
     private AuthUserService authService;
 
+    @Autowired
+    private UserExportService exportService;
+
+    @Autowired
+    private UserImportService importService;
+
+    @Autowired
+    private TokenIntrospectionService introspectionService;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private UserExistenceIndex existenceIndex;
+
+    @Autowired
+    private UserDirectoryVersion directoryVersion;
+
+    // Cacheable solo por el cliente y siempre revalidado con el ETag; el mismo ETag
+    // vale para JSON, CBOR y Smile, así que la caché debe distinguir por Accept.
+    // Los ETags son débiles: Tomcat no comprime respuestas con ETag fuerte
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     @PostMapping("/register")
-    public ResponseEntity<String> registerUser(@RequestBody RegisterRequest request) {
+    public ResponseEntity<String> registerUser(@RequestBody RegisterRequest request, HttpServletRequest httpRequest) {
+        loginThrottle.acquireRegistration(httpRequest.getRemoteAddr());
         String msg = authService.registerUser(request, Role.USER);
         return ResponseEntity.ok(msg);
     }
 
     @PostMapping("/register_admin")
-    public ResponseEntity<String> registerAdmin(@RequestBody RegisterRequest request) {
+    public ResponseEntity<String> registerAdmin(@RequestBody RegisterRequest request, HttpServletRequest httpRequest) {
+        loginThrottle.acquireRegistration(httpRequest.getRemoteAddr());
         String msg = authService.registerUser(request, Role.ADMIN);
         return ResponseEntity.ok(msg);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> loginUser(@RequestBody LoginRequest request) {
-        AuthResponse response = authService.login(request);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<AuthResponse> loginUser(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        // Se rechaza antes de buscar al usuario; el límite por cuenta lo aplica el proveedor
+        loginThrottle.acquireLogin(httpRequest.getRemoteAddr());
+        return ResponseEntity.ok(authService.login(request));
+    }
+
+    // Revoca el token de la petición (y el refresh token si se envía); los siguientes usos reciben 403
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                       @RequestBody(required = false) RefreshRequest request) {
+        authService.logout(authorization.substring("Bearer ".length()),
+            request != null ? request.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Renueva la sesión con el refresh token, sin volver a verificar la contraseña
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@RequestBody RefreshRequest request) {
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
+    }
+
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revoke(@RequestBody RevokeRequest request) {
+        try {
+            authService.revoke(request);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.noContent().build();
     }
 
+    // Validación en lote para el gateway: un resultado por token, en el mismo orden
+    @PostMapping("/introspect")
+    public ResponseEntity<List<TokenIntrospection>> introspect(@RequestBody IntrospectionRequest request) {
+        try {
+            return ResponseEntity.ok(introspectionService.introspect(request));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Disponibilidad para el formulario de alta; los valores "seguro libres" no consultan la base
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> availability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String identificationNumber) {
+        // Ruta pública: se responde aquí en lugar de pasar por /error, que exige autenticación
+        if (isBlank(username) && isBlank(email) && isBlank(identificationNumber)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(new AvailabilityResponse(
+            isBlank(username) ? null : !existenceIndex.exists(UserExistenceIndex.Field.USERNAME, username),
+            isBlank(email) ? null : !existenceIndex.exists(UserExistenceIndex.Field.EMAIL, email),
+            isBlank(identificationNumber) ? null
+                : !existenceIndex.exists(UserExistenceIndex.Field.IDENTIFICATION_NUMBER, identificationNumber)));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    // Atención al público: un usuario por correo o por número de identificación
+    @GetMapping("/lookup")
+    public ResponseEntity<UserShowRequest> lookupUser(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String identificationNumber) {
+        Optional<UserShowRequest> user;
+        try {
+            user = authService.lookupUser(email, identificationNumber);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return user.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Los paneles consultan el listado cada pocos segundos: si no hubo escrituras basta con un 304
     @GetMapping("/allUsers")
-    public ResponseEntity<List<UserShowRequest>> getAllUsers() {
+    public ResponseEntity<List<UserShowRequest>> getAllUsers(WebRequest webRequest) {
+        String etag = directoryVersion.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                .cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).build();
+        }
         List<UserShowRequest> users = authService.getAllUsers();
-        return ResponseEntity.ok(users);
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(users);
+    }
+
+    @GetMapping("/users")
+    public ResponseEntity<UserPageResponse> getUsersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AuthUserService.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) Role role) {
+        try {
+            return ResponseEntity.ok(authService.getUsersPage(cursor, size, role));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Exportación completa en NDJSON o CSV, escrita mientras se lee la base de datos
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format) {
+        UserExportService.Format exportFormat;
+        try {
+            exportFormat = UserExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato no soportado.");
+        }
+        boolean csv = exportFormat == UserExportService.Format.CSV;
+        StreamingResponseBody body = out -> exportService.export(exportFormat, out);
+        return ResponseEntity.ok()
+            .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + (csv ? "csv" : "ndjson"))
+            .body(body);
+    }
+
+    // Alta masiva desde un arreglo JSON o un CSV con cabecera; informa el resultado de cada fila
+    @PostMapping(value = "/import", consumes = { MediaType.APPLICATION_JSON_VALUE, "text/csv" })
+    public ResponseEntity<ImportReport> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        UserImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_JSON)
+            ? UserImportService.Format.JSON
+            : UserImportService.Format.CSV;
+        try {
+            return ResponseEntity.ok(importService.importUsers(body, format));
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Archivo de importación inválido.");
+        }
     }
 
+    /**
+     * El ETag es la versión del usuario, el mismo valor que acepta {@code If-Match}
+     * en PATCH. Se valida leyendo solo la versión; el usuario se carga y se
+     * serializa únicamente si cambió.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<UserShowRequest> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserShowRequest> getUserById(@PathVariable Long id, WebRequest webRequest) {
+        Optional<Long> version = authService.getUserVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = versionEtag(version.get());
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                .cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).build();
+        }
         Optional<UserShowRequest> userOpt = authService.getUserById(id);
-        return userOpt.map(ResponseEntity::ok)
+        // El ETag sale de lo que se devuelve, por si hubo una escritura entre ambas lecturas
+        return userOpt.map(user -> ResponseEntity.ok().eTag(versionEtag(user.getVersion()))
+                          .cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(user))
                       .orElse(ResponseEntity.notFound().build());
     }
 
@@ -59,9 +246,43 @@ public class AuthController {
         return ResponseEntity.ok(msg);
     }
 
+    /**
+     * Actualización parcial. La versión leída va en el cuerpo o en {@code If-Match}
+     * (el ETag de la respuesta); sin ella se responde 428 y, si el usuario cambió
+     * desde entonces, 409.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<UserShowRequest> patchUser(@PathVariable Long id, @RequestBody UserPatchRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long version = request.getVersion();
+        if (version == null && ifMatch != null) {
+            try {
+                version = Long.parseLong(ifMatch.replaceFirst("^W/", "").replace("\"", "").trim());
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        if (version == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).build();
+        }
+        UserShowRequest updated;
+        try {
+            updated = authService.patchUser(id, request, version);
+        } catch (DuplicateUserException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(versionEtag(updated.getVersion())).body(updated);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
         boolean deleted = authService.deleteUser(id);
         return deleted ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
     }
+
+    private static String versionEtag(Long version) {
+        return "W/\"" + version + "\"";
+    }
 }
@@ -0,0 +1,44 @@
+package com.sanctuary.auth.controller;
+
+import com.sanctuary.auth.security.SigningKeyRing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Claves públicas del anillo en formato JWKS. La respuesta se puede cachear; la
+ * clave siguiente se publica antes de firmar con ella, así que basta con que
+ * {@code auth.jwt.jwks-max-age} sea menor que el intervalo de rotación.
+ */
+@RestController
+public class JwksController {
+
+    @Autowired
+    private SigningKeyRing keyRing;
+
+    @Value("${auth.jwt.jwks-max-age:PT1H}")
+    private Duration maxAge = Duration.ofHours(1);
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        List<SigningKeyRing.SigningKey> keys = keyRing.publishedKeys();
+        // Los kid son huellas de las claves, así que sus prefijos identifican el contenido;
+        // Spring responde 304 por sí solo cuando coincide con If-None-Match
+        StringBuilder etag = new StringBuilder();
+        for (SigningKeyRing.SigningKey key : keys) {
+            etag.append(etag.isEmpty() ? "" : ".").append(key.getKid(), 0, 12);
+        }
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+            .eTag(etag.toString())
+            .body(Map.of("keys", keys.stream().map(SigningKeyRing.SigningKey::toJwk).toList()));
+    }
+}
@@ -2,10 +2,21 @@ package com.sanctuary.auth.dto;
 
 public class AuthResponse {
     private String token;
+    private String refreshToken;
+    // Segundos de vigencia del access token
+    private Long expiresIn;
 
     public AuthResponse(String token) {
         this.token = token;
     }
 
+    public AuthResponse(String token, String refreshToken, long expiresIn) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+
     public String getToken() { return token; }
+    public String getRefreshToken() { return refreshToken; }
+    public Long getExpiresIn() { return expiresIn; }
 }
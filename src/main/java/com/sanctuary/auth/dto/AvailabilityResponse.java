@@ -0,0 +1,18 @@
+package com.sanctuary.auth.dto;
+
+// true si el valor está libre; null para los campos que no se consultaron
+public class AvailabilityResponse {
+    private final Boolean username;
+    private final Boolean email;
+    private final Boolean identificationNumber;
+
+    public AvailabilityResponse(Boolean username, Boolean email, Boolean identificationNumber) {
+        this.username = username;
+        this.email = email;
+        this.identificationNumber = identificationNumber;
+    }
+
+    public Boolean getUsername() { return username; }
+    public Boolean getEmail() { return email; }
+    public Boolean getIdentificationNumber() { return identificationNumber; }
+}
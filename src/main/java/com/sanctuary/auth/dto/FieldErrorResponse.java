@@ -0,0 +1,14 @@
+package com.sanctuary.auth.dto;
+
+public class FieldErrorResponse {
+    private String field;
+    private String message;
+
+    public FieldErrorResponse(String field, String message) {
+        this.field = field;
+        this.message = message;
+    }
+
+    public String getField() { return field; }
+    public String getMessage() { return message; }
+}
@@ -0,0 +1,32 @@
+package com.sanctuary.auth.dto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class ImportReport {
+    private int total;
+    private int created;
+    private int failed;
+    private List<ImportRowResult> rows = new ArrayList<>();
+
+    public void add(ImportRowResult result) {
+        rows.add(result);
+        total++;
+        if (result.getStatus() == ImportRowResult.Status.CREATED) {
+            created++;
+        } else {
+            failed++;
+        }
+    }
+
+    // Las filas inválidas se informan antes que las de su lote; se reordenan al final
+    public void sortByRow() {
+        rows.sort(Comparator.comparingInt(ImportRowResult::getRow));
+    }
+
+    public int getTotal() { return total; }
+    public int getCreated() { return created; }
+    public int getFailed() { return failed; }
+    public List<ImportRowResult> getRows() { return rows; }
+}
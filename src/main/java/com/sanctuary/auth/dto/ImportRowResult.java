@@ -0,0 +1,31 @@
+package com.sanctuary.auth.dto;
+
+public class ImportRowResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID,
+        ERROR
+    }
+
+    private int row;
+    private String username;
+    private Status status;
+    private String field;
+    private String message;
+
+    public ImportRowResult(int row, String username, Status status, String field, String message) {
+        this.row = row;
+        this.username = username;
+        this.status = status;
+        this.field = field;
+        this.message = message;
+    }
+
+    public int getRow() { return row; }
+    public String getUsername() { return username; }
+    public Status getStatus() { return status; }
+    public String getField() { return field; }
+    public String getMessage() { return message; }
+}
@@ -0,0 +1,9 @@
+package com.sanctuary.auth.dto;
+
+// Fila de una importación masiva: los datos de registro más un rol opcional
+public class ImportUserRequest extends RegisterRequest {
+    private String role;
+
+    public String getRole() { return role; }
+    public void setRole(String role) { this.role = role; }
+}
@@ -0,0 +1,14 @@
+package com.sanctuary.auth.dto;
+
+import java.util.List;
+
+// Lote de tokens a validar; checkUser pide además comprobar que el usuario siga habilitado
+public class IntrospectionRequest {
+    private List<String> tokens;
+    private boolean checkUser;
+
+    public List<String> getTokens() { return tokens; }
+    public void setTokens(List<String> tokens) { this.tokens = tokens; }
+    public boolean isCheckUser() { return checkUser; }
+    public void setCheckUser(boolean checkUser) { this.checkUser = checkUser; }
+}
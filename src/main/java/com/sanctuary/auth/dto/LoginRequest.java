@@ -1,11 +1,20 @@
 package com.sanctuary.auth.dto;
 
+// Se inicia sesión con el nombre de usuario o, en su lugar, con el correo
 public class LoginRequest {
     private String username;
+    private String email;
     private String password;
 
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
+
+    /** Identificador con el que se autentica: el username si viene, si no el correo */
+    public String identifier() {
+        return username != null && !username.isBlank() ? username : email;
+    }
 }
@@ -0,0 +1,12 @@
+package com.sanctuary.auth.dto;
+
+// Revocación administrativa: un token concreto, todos los de un usuario, o ambos
+public class RevokeRequest {
+    private String token;
+    private String username;
+
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+}
@@ -0,0 +1,33 @@
+package com.sanctuary.auth.dto;
+
+import java.time.Instant;
+
+// Resultado por token; de los inactivos no se revela nada más
+public class TokenIntrospection {
+    private static final TokenIntrospection INACTIVE = new TokenIntrospection(false, null, null, null);
+
+    private final boolean active;
+    private final String subject;
+    private final String role;
+    private final Instant expiresAt;
+
+    private TokenIntrospection(boolean active, String subject, String role, Instant expiresAt) {
+        this.active = active;
+        this.subject = subject;
+        this.role = role;
+        this.expiresAt = expiresAt;
+    }
+
+    public static TokenIntrospection active(String subject, String role, Instant expiresAt) {
+        return new TokenIntrospection(true, subject, role, expiresAt);
+    }
+
+    public static TokenIntrospection inactive() {
+        return INACTIVE;
+    }
+
+    public boolean isActive() { return active; }
+    public String getSubject() { return subject; }
+    public String getRole() { return role; }
+    public Instant getExpiresAt() { return expiresAt; }
+}
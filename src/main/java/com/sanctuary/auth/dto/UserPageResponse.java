@@ -0,0 +1,17 @@
+package com.sanctuary.auth.dto;
+
+import java.util.List;
+
+public class UserPageResponse {
+    private List<UserShowRequest> items;
+    // Cursor opaco para pedir la siguiente página; null si no hay más
+    private String nextCursor;
+
+    public UserPageResponse(List<UserShowRequest> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<UserShowRequest> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,24 @@
+package com.sanctuary.auth.dto;
+
+/**
+ * Actualización parcial: los campos nulos o vacíos no se modifican. La versión
+ * es la que el cliente leyó; también se puede enviar en {@code If-Match}.
+ */
+public class UserPatchRequest {
+    private String username;
+    private String email;
+    private String identificationNumber;
+    private String password;
+    private Long version;
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public String getIdentificationNumber() { return identificationNumber; }
+    public void setIdentificationNumber(String identificationNumber) { this.identificationNumber = identificationNumber; }
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
@@ -8,6 +8,7 @@ public class UserShowRequest {
     private String email;
     private String identificationNumber;
     private Role role;
+    private Long version;
 
     // Constructor vacío
     public UserShowRequest() {
@@ -22,6 +23,13 @@ public class UserShowRequest {
         this.role = role;
     }
 
+    // Con la versión que se envía en If-Match o en una actualización parcial
+    public UserShowRequest(Long id, String username, String email, String identificationNumber, Role role,
+                           Long version) {
+        this(id, username, email, identificationNumber, role);
+        this.version = version;
+    }
+
     // Getters y setters
     public Long getId() {
         return id;
@@ -62,4 +70,12 @@ public class UserShowRequest {
     public void setRole(Role role) {
         this.role = role;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -1,25 +1,43 @@
 package com.sanctuary.auth.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import java.util.List;
+import java.util.Locale;
 
 @Entity
-@Table(name = "users")
+// Los UPDATE solo incluyen las columnas modificadas
+@DynamicUpdate
+@Table(name = "users", uniqueConstraints = {
+    // Nombres explícitos para poder identificar el campo duplicado al insertar
+    // Los índices únicos también resuelven las búsquedas puntuales por correo e identificación
+    @UniqueConstraint(name = AppUser.UK_USERNAME, columnNames = "username"),
+    @UniqueConstraint(name = AppUser.UK_EMAIL, columnNames = "email"),
+    @UniqueConstraint(name = AppUser.UK_IDENTIFICATION_NUMBER, columnNames = "identification_number")
+}, indexes = {
+    // Soporta la paginación por cursor filtrada por rol
+    @Index(name = "idx_users_role_id", columnList = "role, id")
+})
 public class AppUser implements UserDetails {
+    public static final String UK_USERNAME = "uk_users_username";
+    public static final String UK_EMAIL = "uk_users_email";
+    public static final String UK_IDENTIFICATION_NUMBER = "uk_users_identification_number";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String username;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String identification_number;
     
     @Column(nullable = false)
@@ -28,19 +46,35 @@ public class AppUser implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    // Control de concurrencia optimista; las filas existentes empiezan en 0
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // Getters y Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) { this.email = normalizeEmail(email); }
     public String getIdentificationNumber() { return identification_number; }
     public void setIdentificationNumber(String identification_number) { this.identification_number = identification_number; }
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
     public Role getRole() { return role; }
     public void setRole(Role role) { this.role = role; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    /**
+     * Forma canónica del correo (sin espacios y en minúsculas). Se guarda así y se
+     * busca así, de modo que la búsqueda es una igualdad sobre el índice único.
+     */
+    public static String normalizeEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
 
     @Override
     public List<GrantedAuthority> getAuthorities() {
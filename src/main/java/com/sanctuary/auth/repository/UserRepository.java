@@ -1,10 +1,16 @@
 package com.sanctuary.auth.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.sanctuary.auth.dto.UserShowRequest;
 import com.sanctuary.auth.model.AppUser;
+import com.sanctuary.auth.model.Role;
 
+import java.util.List;
 import java.util.Optional;
 
 // Anotación para indicar que esta interfaz es un repositorio de Spring
@@ -12,4 +18,50 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<AppUser, Long> {
     // Método para encontrar un usuario por su nombre de usuario
     Optional<AppUser> findByUsername(String username);
+
+    // Login por correo; el valor debe llegar normalizado con AppUser.normalizeEmail
+    Optional<AppUser> findByEmail(String email);
+
+    // Solo el nombre de usuario, sin cargar la entidad completa
+    @Query("SELECT u.username FROM AppUser u WHERE u.id = :id")
+    Optional<String> findUsernameById(@Param("id") Long id);
+
+    // Confirmación exacta de existencia sobre los índices únicos, sin cargar la fila
+    @Query("SELECT COUNT(u) > 0 FROM AppUser u WHERE u.username = :username")
+    boolean existsByUsername(@Param("username") String username);
+
+    @Query("SELECT COUNT(u) > 0 FROM AppUser u WHERE u.email = :email")
+    boolean existsByEmail(@Param("email") String email);
+
+    @Query("SELECT COUNT(u) > 0 FROM AppUser u WHERE u.identification_number = :identificationNumber")
+    boolean existsByIdentificationNumber(@Param("identificationNumber") String identificationNumber);
+
+    // Proyección de solo lectura: selecciona únicamente las columnas visibles,
+    // nunca el hash de la contraseña, y no crea entidades gestionadas
+    String USER_VIEW = "SELECT new com.sanctuary.auth.dto.UserShowRequest("
+        + "u.id, u.username, u.email, u.identification_number, u.role, u.version) FROM AppUser u ";
+
+    @Query(USER_VIEW + "ORDER BY u.id")
+    List<UserShowRequest> findAllViews();
+
+    @Query(USER_VIEW + "WHERE u.id = :id")
+    Optional<UserShowRequest> findViewById(@Param("id") Long id);
+
+    // Búsqueda por clave primaria que solo lee la versión, para validar ETags
+    @Query("SELECT u.version FROM AppUser u WHERE u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Búsquedas puntuales sobre los índices únicos de correo e identificación
+    @Query(USER_VIEW + "WHERE u.email = :email")
+    Optional<UserShowRequest> findViewByEmail(@Param("email") String email);
+
+    @Query(USER_VIEW + "WHERE u.identification_number = :identificationNumber")
+    Optional<UserShowRequest> findViewByIdentificationNumber(@Param("identificationNumber") String identificationNumber);
+
+    // Paginación por cursor (keyset) sobre el id: cada página es un rango del índice
+    @Query(USER_VIEW + "WHERE u.id > :afterId ORDER BY u.id")
+    List<UserShowRequest> findViewsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query(USER_VIEW + "WHERE u.role = :role AND u.id > :afterId ORDER BY u.id")
+    List<UserShowRequest> findViewsByRoleAfter(@Param("role") Role role, @Param("afterId") Long afterId, Limit limit);
 }
@@ -4,6 +4,7 @@ import com.sanctuary.auth.model.AppUser;
 import com.sanctuary.auth.repository.UserRepository;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -12,17 +13,14 @@ import org.springframework.stereotype.Service;
 public class AuthService {
     private final UserRepository userRepository;
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsServiceImpl userDetailsService;
     private final PasswordEncoder passwordEncoder;
 
     // Inyección de dependencias
     public AuthService(UserRepository userRepository, 
                        AuthenticationManager authenticationManager, 
-                       UserDetailsServiceImpl userDetailsService,
                        PasswordEncoder passwordEncoder) { 
         this.userRepository = userRepository;
         this.authenticationManager = authenticationManager;
-        this.userDetailsService = userDetailsService;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -33,7 +31,9 @@ public class AuthService {
     }
 
     public UserDetails authenticate(String username, String password) {
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
-        return userDetailsService.loadUserByUsername(username);
+        // El principal autenticado ya es el usuario cargado, no hace falta releerlo
+        Authentication authentication = authenticationManager.authenticate(
+            new UsernamePasswordAuthenticationToken(username, password));
+        return (UserDetails) authentication.getPrincipal();
     }
 }
@@ -0,0 +1,40 @@
+package com.sanctuary.auth.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Calcula el coste de BCrypt que más se acerca, sin superarlo, a un tiempo
+ * objetivo por hash en el hardware actual. Cada punto de coste duplica el tiempo.
+ */
+public final class BCryptStrengthCalibrator {
+    // Nunca se calibra por debajo del valor por defecto de Spring Security
+    static final int MIN_STRENGTH = 10;
+    static final int MAX_STRENGTH = 31;
+    private static final int SAMPLES = 3;
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    public static int calibrate(long targetMillis) {
+        long baseline = measureNanos(MIN_STRENGTH);
+        long target = targetMillis * 1_000_000L;
+        int strength = MIN_STRENGTH;
+        while (strength < MAX_STRENGTH && baseline << (strength + 1 - MIN_STRENGTH) <= target) {
+            strength++;
+        }
+        return strength;
+    }
+
+    /** Mejor tiempo de varias muestras, descartando el calentamiento de la JVM */
+    private static long measureNanos(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode("calibracion");
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibracion");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
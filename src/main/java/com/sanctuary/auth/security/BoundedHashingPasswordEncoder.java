@@ -0,0 +1,40 @@
+package com.sanctuary.auth.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Decorador que ejecuta las operaciones costosas del encoder dentro del
+ * {@link PasswordHashingExecutor}, de modo que login, registro y actualización
+ * comparten el mismo límite sin cambiar a quien los invoca.
+ */
+public class BoundedHashingPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+
+    public BoundedHashingPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.execute(PasswordHashingExecutor.Operation.ENCODE, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.execute(PasswordHashingExecutor.Operation.MATCHES,
+                () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /** Solo inspecciona el prefijo y el coste del hash, no necesita el pool */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /** Encoder sin límite, para procesos por lotes que gestionan su propio paralelismo */
+    public PasswordEncoder getDelegate() {
+        return delegate;
+    }
+}
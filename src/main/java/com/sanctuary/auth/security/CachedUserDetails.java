@@ -0,0 +1,67 @@
+package com.sanctuary.auth.security;
+
+import com.sanctuary.auth.model.AppUser;
+import com.sanctuary.auth.model.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia inmutable y compacta de los datos de autenticación de un usuario.
+ * Se guarda en caché en lugar de la entidad JPA para no retenerla en memoria.
+ */
+public final class CachedUserDetails implements UserDetails {
+    private static final Map<Role, List<GrantedAuthority>> AUTHORITIES = new EnumMap<>(Role.class);
+
+    static {
+        for (Role role : Role.values()) {
+            AUTHORITIES.put(role, List.of(new SimpleGrantedAuthority("ROLE_" + role.name())));
+        }
+    }
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String password;
+    private final Role role;
+
+    public CachedUserDetails(Long id, String username, String password, Role role) {
+        this(id, username, null, password, role);
+    }
+
+    public CachedUserDetails(Long id, String username, String email, String password, Role role) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+    }
+
+    public static CachedUserDetails from(AppUser user) {
+        return new CachedUserDetails(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(),
+            user.getRole());
+    }
+
+    public Long getId() { return id; }
+    public Role getRole() { return role; }
+    // Ya normalizado; permite encontrar en caché los logins por correo
+    public String getEmail() { return email; }
+
+    @Override
+    public String getUsername() { return username; }
+
+    @Override
+    public String getPassword() { return password; }
+
+    @Override
+    public List<GrantedAuthority> getAuthorities() {
+        return role != null ? AUTHORITIES.get(role) : List.of();
+    }
+
+    @Override
+    public String toString() { return "CachedUserDetails[" + username + "]"; }
+}
@@ -0,0 +1,15 @@
+package com.sanctuary.auth.security;
+
+/** El pool de hashing de contraseñas está saturado y la petición se rechaza */
+public class HashingCapacityExceededException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public HashingCapacityExceededException(long retryAfterSeconds) {
+        super("Demasiadas solicitudes, intente de nuevo más tarde.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
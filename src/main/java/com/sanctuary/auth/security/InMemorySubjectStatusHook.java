@@ -0,0 +1,82 @@
+package com.sanctuary.auth.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Registro en memoria de usuarios eliminados o renombrados. Cada revocación se
+ * conserva solo mientras pueda existir un token emitido antes de ella. Igual que
+ * {@link TokenDenyList}, nunca descarta revocaciones vigentes para hacer sitio:
+ * hacerlo rehabilitaría los tokens anteriores del usuario.
+ */
+@Component
+public class InMemorySubjectStatusHook implements SubjectStatusHook, MeterBinder {
+    // Cada cuántas revocaciones se barren las entradas caducadas
+    static final int PURGE_INTERVAL = 1024;
+    // Una revocación deja de hacer falta cuando expira el último token emitido antes de ella
+    private static final long RETENTION = JwtService.TOKEN_VALIDITY + JwtService.CLOCK_SKEW;
+
+    private final ConcurrentHashMap<String, Long> revokedAt = new ConcurrentHashMap<>();
+    private final AtomicInteger revocationsSincePurge = new AtomicInteger();
+    private final AtomicBoolean purging = new AtomicBoolean();
+    private final LongSupplier clock;
+
+    public InMemorySubjectStatusHook() {
+        this(System::currentTimeMillis);
+    }
+
+    InMemorySubjectStatusHook(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean isRevoked(String username, Instant issuedAt) {
+        if (revokedAt.isEmpty()) {
+            return false;
+        }
+        Long revoked = revokedAt.get(username);
+        // "iat" tiene precisión de segundos: ante la duda se rechaza el token
+        return revoked != null && (issuedAt == null || issuedAt.toEpochMilli() <= revoked);
+    }
+
+    @Override
+    public void revoke(String username) {
+        long now = clock.getAsLong();
+        revokedAt.merge(username, now, Math::max);
+        if (revocationsSincePurge.incrementAndGet() >= PURGE_INTERVAL) {
+            purge(now);
+        }
+    }
+
+    public int size() {
+        return revokedAt.size();
+    }
+
+    /** Elimina las revocaciones que ya no afectan a ningún token vigente. Solo un hilo barre a la vez */
+    void purge(long now) {
+        if (!purging.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            revocationsSincePurge.set(0);
+            revokedAt.values().removeIf(revoked -> revoked + RETENTION <= now);
+        } finally {
+            purging.set(false);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.revocation.subjects.size", revokedAt, ConcurrentHashMap::size)
+            .description("Usuarios con revocaciones que aún afectan a tokens vigentes")
+            .register(registry);
+    }
+}
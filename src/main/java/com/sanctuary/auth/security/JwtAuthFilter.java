@@ -1,9 +1,12 @@
 package com.sanctuary.auth.security;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,16 +20,50 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    // Resultado del filtro por petición, publicado en auth.filter.tokens{outcome}
+    enum Outcome {
+        MISSING,
+        EXPIRED,
+        INVALID,
+        REVOKED,
+        REJECTED,
+        ACCEPTED
+    }
+
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final SubjectStatusHook subjectStatusHook;
+    private final TokenDenyList tokenDenyList;
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+    // En modo sin estado el principal sale de los claims y no se consulta la base de datos
+    private boolean stateless;
 
-    public JwtAuthFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthFilter(JwtService jwtService, UserDetailsService userDetailsService,
+                         SubjectStatusHook subjectStatusHook, TokenDenyList tokenDenyList,
+                         MeterRegistry registry) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.subjectStatusHook = subjectStatusHook;
+        this.tokenDenyList = tokenDenyList;
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("auth.filter.tokens")
+                    .description("Peticiones procesadas por el filtro JWT según el resultado del token")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+    }
+
+    @Value("${auth.jwt.stateless:false}")
+    public void setStateless(boolean stateless) {
+        this.stateless = stateless;
     }
 
    @Override
@@ -38,34 +75,59 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader("Authorization");
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            outcomes.get(Outcome.MISSING).increment();
             filterChain.doFilter(request, response);
             return;
         }
 
         final String jwt = authHeader.substring(7);
-        String username = null;
+        VerifiedToken token = null;
+        Outcome outcome = Outcome.REJECTED;
         
         try {
-            username = jwtService.extractUsername(jwt);
+            // Una sola verificación de firma por petición
+            token = jwtService.verify(jwt);
         } catch (ExpiredJwtException e) {
             // Token expirado, simplemente continúa con la cadena de filtros
             // Opcionalmente puedes agregar un encabezado personalizado
             response.setHeader("Token-Expired", "true");
-        } catch (JwtException e) {
-            // Otros errores de JWT
+            outcome = Outcome.EXPIRED;
+        } catch (JwtException | IllegalArgumentException e) {
+            // Otros errores de JWT, incluido un token vacío
+            outcome = Outcome.INVALID;
+        }
+
+        if (token != null && isRevoked(token)) {
+            outcome = Outcome.REVOKED;
+            token = null;
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtService.validateToken(jwt, userDetails)) {
+        if (token != null && token.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = stateless
+                    ? TokenPrincipal.from(token)
+                    : userDetailsService.loadUserByUsername(token.getSubject());
+            if (userDetails != null && jwtService.isTokenValid(token, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities()
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                outcome = Outcome.ACCEPTED;
             }
         }
+        outcomes.get(outcome).increment();
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Token revocado por logout (su {@code jti}) o por un cambio del usuario que
+     * invalida todo lo emitido antes. Se comprueba en ambos modos.
+     */
+    private boolean isRevoked(VerifiedToken token) {
+        return tokenDenyList.isRevoked(token.getId())
+                || (token.getSubject() != null
+                    && subjectStatusHook.isRevoked(token.getSubject(), token.getIssuedAt()));
+    }
 }
@@ -1,62 +1,183 @@
 package com.sanctuary.auth.security;
 
+import com.sanctuary.auth.cache.ExpiringCache;
+import com.sanctuary.auth.cache.ExpiringCacheMetrics;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtService {
-    private static final String SECRET_KEY = "TuClaveSuperSecretaConAlMenos32Caracteres!!!"; 
-    private static final Key key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    // Vigencia máxima de un access token (1 hora) con 5 minutos de tolerancia
+    static final long TOKEN_VALIDITY = 1000 * 60 * 60;
+    static final long DEFAULT_ACCESS_TOKEN_TTL = 1000 * 60 * 15;
+    static final long CLOCK_SKEW = 1000 * 60 * 5;
+    private static final int VERIFIED_CACHE_SIZE = 10_000;
+
+    private final SigningKeyRing keyRing;
+
+    // El parser es inmutable y thread-safe, así que se construye una sola vez;
+    // la clave se elige por token según su cabecera
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                @Override
+                public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                    return resolveKey(header);
+                }
+            })
+            .build();
+
+    // Tokens ya verificados, indexados por su digest y vigentes hasta su "exp"
+    private final ExpiringCache<String, VerifiedToken> verifiedTokens = new ExpiringCache<>(VERIFIED_CACHE_SIZE);
+
+    // Los access tokens duran poco: la sesión se renueva con el refresh token
+    private long accessTokenTtl = DEFAULT_ACCESS_TOKEN_TTL;
+
+    private final Timer signTimer;
+    private final Timer verifyCached;
+    private final Timer verifyValid;
+    private final Timer verifyExpired;
+    private final Timer verifyInvalid;
+
+    public JwtService(MeterRegistry registry, SigningKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.signTimer = Timer.builder("auth.jwt.sign")
+                .description("Duración de la firma de tokens")
+                .register(registry);
+        this.verifyCached = verifyTimer(registry, "cached");
+        this.verifyValid = verifyTimer(registry, "valid");
+        this.verifyExpired = verifyTimer(registry, "expired");
+        this.verifyInvalid = verifyTimer(registry, "invalid");
+        new ExpiringCacheMetrics(verifiedTokens, "jwt-verified").bindTo(registry);
+    }
+
+    private static Timer verifyTimer(MeterRegistry registry, String result) {
+        return Timer.builder("auth.jwt.verify")
+                .description("Duración de la verificación de tokens según su resultado")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /** Vigencia de los access tokens, acotada a {@link #TOKEN_VALIDITY} */
+    @Value("${auth.jwt.access-ttl:PT15M}")
+    public void setAccessTokenTtl(Duration ttl) {
+        this.accessTokenTtl = Math.min(ttl.toMillis(), TOKEN_VALIDITY);
+    }
+
+    public Duration getAccessTokenTtl() {
+        return Duration.ofMillis(accessTokenTtl);
+    }
 
     public String generateToken(UserDetails userDetails) {
-        return Jwts.builder()
-                .setSubject(userDetails.getUsername())
-                .claim("role", userDetails.getAuthorities().stream()
-                    .findFirst()
-                    .map(GrantedAuthority::getAuthority)
-                    .orElse("ROLE_USER"))
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60)) // 1 hora
-                .signWith(key, SignatureAlgorithm.HS256) 
-                .compact();
+        return generateToken(userDetails, System.currentTimeMillis());
+    }
+
+    /** Emite el token como si se hubiera generado en el instante dado (epoch en milisegundos) */
+    String generateToken(UserDetails userDetails, long issuedAtMillis) {
+        long start = System.nanoTime();
+        SigningKeyRing.SigningKey signingKey = keyRing.current();
+        try {
+            return Jwts.builder()
+                    .setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid())
+                    .setId(UUID.randomUUID().toString())
+                    .setSubject(userDetails.getUsername())
+                    .claim("role", userDetails.getAuthorities().stream()
+                        .findFirst()
+                        .map(GrantedAuthority::getAuthority)
+                        .orElse("ROLE_USER"))
+                    .setIssuedAt(new Date(issuedAtMillis))
+                    .setExpiration(new Date(issuedAtMillis + accessTokenTtl))
+                    .signWith(signingKey.getPrivateKey(), SignatureAlgorithm.RS256)
+                    .compact();
+        } finally {
+            signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Parsea y verifica el token una sola vez. Lanza {@link ExpiredJwtException}
+     * o {@link JwtException} igual que el parser de jjwt.
+     */
+    public VerifiedToken verify(String token) {
+        final long start = System.nanoTime();
+        final String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            verifyCached.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+        VerifiedToken verified;
+        try {
+            verified = VerifiedToken.from(parser.parseClaimsJws(token).getBody());
+        } catch (ExpiredJwtException e) {
+            verifyExpired.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } catch (JwtException | IllegalArgumentException e) {
+            verifyInvalid.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        if (verified.getExpiresAt() != null) {
+            verifiedTokens.put(digest, verified, verified.getExpiresAt().toEpochMilli());
+        }
+        verifyValid.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return verified;
+    }
+
+    /**
+     * Clave para verificar un token: la del anillo según su kid. Los tokens sin kid
+     * (los HS256 anteriores al anillo) se rechazan. El algoritmo de la cabecera
+     * debe corresponder a la clave para evitar confusiones de algoritmo.
+     */
+    private Key resolveKey(JwsHeader<?> header) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            throw new UnsupportedJwtException("Token sin clave de firma reconocida");
+        }
+        Key publicKey = keyRing.verificationKey(kid);
+        if (publicKey == null || !SignatureAlgorithm.RS256.getValue().equals(header.getAlgorithm())) {
+            throw new UnsupportedJwtException("Clave de firma desconocida: " + kid);
+        }
+        return publicKey;
     }
 
     /** Extrae el username del token JWT */
     public String extractUsername(String token) {
-      return extractClaim(token, Claims::getSubject);
+      return verify(token).getSubject();
   }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isTokenValid(verify(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        // Permitir 5 minutos de tolerancia
-        final long CLOCK_SKEW = 1000 * 60 * 5; 
-        return extractClaim(token, Claims::getExpiration).before(new Date(System.currentTimeMillis() - CLOCK_SKEW));
+    /** Comprueba un token ya verificado contra el usuario sin volver a parsearlo */
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.getSubject() != null
+                && token.getSubject().equals(userDetails.getUsername())
+                && !token.isExpiredAt(System.currentTimeMillis() - CLOCK_SKEW);
     }
 
-  /** Extrae un claim específico del token */
-  private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-      final Claims claims = extractAllClaims(token);
-      return claimsResolver.apply(claims);
-  }
-
-  /** Extrae todos los claims del token */
-  private Claims extractAllClaims(String token) {
-      return Jwts.parserBuilder()
-              .setSigningKey(key)
-              .build()
-              .parseClaimsJws(token)
-              .getBody();
+  /** SHA-256 del token en Base64 URL, usado como clave de la caché */
+  private static String digest(String token) {
+      try {
+          byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+          return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+      } catch (NoSuchAlgorithmException e) {
+          throw new IllegalStateException("SHA-256 no disponible", e);
+      }
   }
 }
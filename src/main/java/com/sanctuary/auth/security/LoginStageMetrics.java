@@ -0,0 +1,40 @@
+package com.sanctuary.auth.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Tiempos de cada etapa del login (búsqueda, contraseña y firma) publicados como {@code auth.login.stage} */
+@Component
+public class LoginStageMetrics {
+
+    public enum Stage {
+        LOOKUP,
+        PASSWORD_CHECK,
+        SIGNING
+    }
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+
+    public LoginStageMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("auth.login.stage")
+                .description("Duración de cada etapa del login")
+                .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                .register(registry));
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        timers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getCount(Stage stage) { return timers.get(stage).count(); }
+    public long getTotalNanos(Stage stage) { return (long) timers.get(stage).totalTime(TimeUnit.NANOSECONDS); }
+    public long getMaxNanos(Stage stage) { return (long) timers.get(stage).max(TimeUnit.NANOSECONDS); }
+}
@@ -0,0 +1,184 @@
+package com.sanctuary.auth.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limita los intentos de login por IP y por cuenta, y los registros por IP,
+ * antes de calcular ningún hash. La IP se comprueba al recibir la petición; la
+ * cuenta, una vez resuelta (por nombre o por correo), justo antes de verificar
+ * la contraseña, para que alternar entre ambos no dé intentos extra. Cada clave es un token bucket guardado como un
+ * único {@code AtomicLong} (el instante teórico de la siguiente llegada, GCRA):
+ * consumir un token es un CAS sin bloqueos, y rechazar no reserva memoria.
+ * Los buckets llenos están inactivos y se barren; si aun así se alcanza
+ * {@code auth.throttle.max-keys}, las claves nuevas pasan sin seguimiento.
+ */
+@Component
+public class LoginThrottle implements MeterBinder {
+    // Cada cuántas claves nuevas se barren los buckets inactivos
+    static final int SWEEP_INTERVAL = 1024;
+
+    private final boolean enabled;
+    private final Buckets byIp;
+    private final Buckets byUser;
+    private final LongSupplier clock;
+
+    @Autowired
+    public LoginThrottle(@Value("${auth.throttle.enabled:true}") boolean enabled,
+                         @Value("${auth.throttle.ip.capacity:20}") int ipCapacity,
+                         @Value("${auth.throttle.ip.refill-period:PT1S}") Duration ipRefillPeriod,
+                         @Value("${auth.throttle.user.capacity:5}") int userCapacity,
+                         @Value("${auth.throttle.user.refill-period:PT1M}") Duration userRefillPeriod,
+                         @Value("${auth.throttle.max-keys:100000}") int maxKeys) {
+        this(enabled, new Buckets(ipCapacity, ipRefillPeriod.toMillis(), maxKeys),
+            new Buckets(userCapacity, userRefillPeriod.toMillis(), maxKeys), System::currentTimeMillis);
+    }
+
+    LoginThrottle(boolean enabled, Buckets byIp, Buckets byUser, LongSupplier clock) {
+        this.enabled = enabled;
+        this.byIp = byIp;
+        this.byUser = byUser;
+        this.clock = clock;
+    }
+
+    /**
+     * Consume un intento de login de la IP; lanza {@link LoginThrottledException} si
+     * no quedan. Si la IP está agotada no se llega a buscar la cuenta ni a gastar su bucket.
+     */
+    public void acquireLogin(String clientIp) {
+        if (!enabled || clientIp == null) {
+            return;
+        }
+        reject(byIp.tryAcquire(clientIp, clock.getAsLong()));
+    }
+
+    /** Consume un intento de la cuenta ya resuelta, identificada por su username */
+    public void acquireAccount(String username) {
+        if (!enabled || username == null || username.isEmpty()) {
+            return;
+        }
+        reject(byUser.tryAcquire(userKey(username), clock.getAsLong()));
+    }
+
+    /** Los registros también hashean la contraseña: comparten el bucket de la IP */
+    public void acquireRegistration(String clientIp) {
+        if (!enabled || clientIp == null) {
+            return;
+        }
+        reject(byIp.tryAcquire(clientIp, clock.getAsLong()));
+    }
+
+    /** Tras un login correcto el usuario recupera todos sus intentos */
+    public void loginSucceeded(String username) {
+        if (enabled && username != null) {
+            byUser.reset(userKey(username));
+        }
+    }
+
+    private static void reject(long waitMillis) {
+        if (waitMillis > 0) {
+            throw new LoginThrottledException(Math.max(1, (waitMillis + 999) / 1000));
+        }
+    }
+
+    // MySQL compara los usernames sin distinguir mayúsculas: variarlas no da intentos extra
+    private static String userKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        byIp.bindTo(registry, "ip");
+        byUser.bindTo(registry, "user");
+    }
+
+    /** Token buckets por clave; el mapa concurrente reparte la contención entre sus segmentos */
+    static final class Buckets {
+        private final ConcurrentHashMap<String, AtomicLong> arrivals = new ConcurrentHashMap<>();
+        // Milisegundos que tarda en reponerse un token y ráfaga máxima en milisegundos
+        private final long interval;
+        private final long burst;
+        private final int maxKeys;
+        private final AtomicInteger newKeysSinceSweep = new AtomicInteger();
+        private final AtomicBoolean sweeping = new AtomicBoolean();
+        private final LongAdder rejected = new LongAdder();
+
+        Buckets(int capacity, long refillPeriodMillis, int maxKeys) {
+            this.interval = Math.max(1, refillPeriodMillis);
+            this.burst = capacity * interval;
+            this.maxKeys = maxKeys;
+        }
+
+        /** 0 si se concede el token; si no, los milisegundos hasta que haya uno */
+        long tryAcquire(String key, long now) {
+            AtomicLong arrival = arrivals.get(key);
+            if (arrival == null) {
+                if (newKeysSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+                    sweep(now);
+                }
+                if (arrivals.size() >= maxKeys) {
+                    return 0;
+                }
+                arrival = arrivals.computeIfAbsent(key, k -> new AtomicLong(now));
+            }
+            while (true) {
+                long current = arrival.get();
+                long next = Math.max(current, now) + interval;
+                long wait = next - now - burst;
+                if (wait > 0) {
+                    rejected.increment();
+                    return wait;
+                }
+                if (arrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        void reset(String key) {
+            arrivals.remove(key);
+        }
+
+        int size() {
+            return arrivals.size();
+        }
+
+        /** Un bucket lleno equivale a uno inexistente, así que se puede descartar. Solo un hilo barre a la vez */
+        void sweep(long now) {
+            if (!sweeping.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                newKeysSinceSweep.set(0);
+                arrivals.values().removeIf(arrival -> arrival.get() <= now);
+            } finally {
+                sweeping.set(false);
+            }
+        }
+
+        private void bindTo(MeterRegistry registry, String scope) {
+            FunctionCounter.builder("auth.login.throttled", rejected, LongAdder::sum)
+                .description("Intentos rechazados por el limitador antes de verificar la contraseña")
+                .tag("scope", scope)
+                .register(registry);
+            Gauge.builder("auth.login.throttle.keys", arrivals, ConcurrentHashMap::size)
+                .description("Buckets activos del limitador de login")
+                .tag("scope", scope)
+                .register(registry);
+        }
+    }
+}
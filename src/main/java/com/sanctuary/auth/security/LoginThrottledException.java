@@ -0,0 +1,15 @@
+package com.sanctuary.auth.security;
+
+/** Se agotaron los intentos de login o registro para la IP o el usuario */
+public class LoginThrottledException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Demasiados intentos, intente de nuevo más tarde.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
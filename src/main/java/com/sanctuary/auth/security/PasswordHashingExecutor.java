@@ -0,0 +1,138 @@
+package com.sanctuary.auth.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Compartimento dedicado al hashing de contraseñas. Un pool del tamaño del
+ * número de núcleos con cola acotada evita que una ráfaga de logins ocupe
+ * todos los hilos de Tomcat; cuando la cola se llena se rechaza de inmediato.
+ * Publica la espera en cola, la duración del hashing por operación, los
+ * rechazos y la ocupación del pool.
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+    public enum Operation {
+        ENCODE,
+        MATCHES
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+
+    private final Map<Operation, Timer> hashTimers = new EnumMap<>(Operation.class);
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    public PasswordHashingExecutor(@Value("${auth.hashing.threads:0}") int threads,
+                                   @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${auth.hashing.retry-after-seconds:1}") long retryAfterSeconds,
+                                   MeterRegistry registry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        for (Operation operation : Operation.values()) {
+            hashTimers.put(operation, Timer.builder("auth.password.hash")
+                    .description("Duración del hashing de contraseñas, sin la espera en cola")
+                    .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        this.queueWait = Timer.builder("auth.password.queue.wait")
+                .description("Espera en cola antes de empezar el hashing")
+                .register(registry);
+        this.rejected = Counter.builder("auth.password.rejected")
+                .description("Operaciones rechazadas por cola llena")
+                .register(registry);
+        // executor.pool.size, executor.active, executor.queued, executor.queue.remaining...
+        new ExecutorServiceMetrics(executor, "password-hashing", Tags.empty()).bindTo(registry);
+    }
+
+    /**
+     * Ejecuta la tarea en el pool y espera su resultado. Lanza
+     * {@link HashingCapacityExceededException} si la cola está llena.
+     */
+    public <T> T execute(Operation operation, Supplier<T> task) {
+        final Timer hashTimer = hashTimers.get(operation);
+        final long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return task.get();
+                } finally {
+                    hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new HashingCapacityExceededException(retryAfterSeconds);
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hashing de contraseña interrumpido", e);
+        }
+    }
+
+    public int getPoolSize() { return executor.getMaximumPoolSize(); }
+    public int getQueueSize() { return executor.getQueue().size(); }
+    public int getActiveCount() { return executor.getActiveCount(); }
+    public long getCompletedCount() { return hashTimers.values().stream().mapToLong(Timer::count).sum(); }
+    public long getRejectedCount() { return (long) rejected.count(); }
+    public long getTotalQueueWaitNanos() { return (long) queueWait.totalTime(TimeUnit.NANOSECONDS); }
+    public long getTotalHashNanos() {
+        return (long) hashTimers.values().stream().mapToDouble(t -> t.totalTime(TimeUnit.NANOSECONDS)).sum();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
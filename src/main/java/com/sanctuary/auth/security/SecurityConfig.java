@@ -1,30 +1,61 @@
 package com.sanctuary.auth.security;
 
+import jakarta.servlet.DispatcherType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Map;
+
 @Configuration
 public class SecurityConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+    private static final int DEFAULT_BCRYPT_STRENGTH = 10;
+
     private final UserDetailsService userDetailsService;
 
     public SecurityConfig(UserDetailsService userDetailsService) {
         this.userDetailsService = userDetailsService;
     }
 
+    /**
+     * BCrypt con coste fijo ({@code auth.password.bcrypt-strength}) o calibrado al
+     * arrancar según {@code auth.password.target-hash-ms}. Los hashes se guardan con
+     * prefijo {@code {bcrypt}}; los antiguos sin prefijo o con menor coste se
+     * siguen aceptando y se actualizan en el siguiente login. Todo el hashing se
+     * ejecuta en el {@link PasswordHashingExecutor}, fuera de los hilos de Tomcat.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.bcrypt-strength:0}") int strength,
+                                           @Value("${auth.password.target-hash-ms:0}") long targetHashMs,
+                                           PasswordHashingExecutor hashingExecutor) {
+        int cost = DEFAULT_BCRYPT_STRENGTH;
+        if (strength > 0) {
+            cost = strength;
+        } else if (targetHashMs > 0) {
+            cost = BCryptStrengthCalibrator.calibrate(targetHashMs);
+            log.info("Coste de BCrypt calibrado a {} para un objetivo de {} ms", cost, targetHashMs);
+        }
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(cost);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new BoundedHashingPasswordEncoder(encoder, hashingExecutor);
     }
 
     @Bean
@@ -33,19 +64,33 @@ public class SecurityConfig {
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder()); 
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder,
+                                                           UserDetailsPasswordService userDetailsPasswordService,
+                                                           LoginStageMetrics loginStageMetrics,
+                                                           LoginThrottle loginThrottle) {
+        DaoAuthenticationProvider authProvider = new TimedDaoAuthenticationProvider(userDetailsService,
+            loginStageMetrics, loginThrottle);
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // Rehash transparente tras un login correcto si el hash está desactualizado
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter,
+                                                   UserOwnershipAuthorization userOwnership) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/auth/register", "/api/auth/login","/api/auth/register_admin","/api/auth/allUsers","/api/auth/{id}").permitAll()
+                // La petición original ya fue autorizada; el despacho asíncrono solo termina la respuesta
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                .requestMatchers("/api/auth/export", "/api/auth/import", "/api/auth/revoke", "/api/auth/introspect", "/api/auth/lookup").hasRole("ADMIN")
+                // Antes de "/api/auth/{id}", que coincidiría con cualquier ruta de un segmento
+                .requestMatchers("/api/auth/logout").authenticated()
+                // La actualización parcial no hereda el permitAll de "/api/auth/{id}": solo el dueño o un admin
+                .requestMatchers(HttpMethod.PATCH, "/api/auth/{id}").access(userOwnership::check)
+                .requestMatchers("/actuator/health", "/actuator/prometheus", "/.well-known/jwks.json").permitAll()
+                .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/refresh","/api/auth/availability","/api/auth/register_admin","/api/auth/allUsers","/api/auth/{id}").permitAll()
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -0,0 +1,181 @@
+package com.sanctuary.auth.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Anillo de claves RSA para firmar tokens RS256. Hay siempre una clave activa y
+ * una siguiente que ya se publica en el JWKS antes de empezar a firmar, para que
+ * los servicios que cachean el JWKS la conozcan cuando aparezcan tokens con ella.
+ * Las claves retiradas se conservan mientras puedan existir tokens vigentes
+ * firmados con ellas.
+ */
+@Component
+public class SigningKeyRing {
+    static final String ALGORITHM = "RS256";
+
+    private final int keySize;
+    private final LongSupplier clock;
+    private volatile State state;
+
+    @Autowired
+    public SigningKeyRing(@Value("${auth.jwt.rsa-key-size:2048}") int keySize) {
+        this(keySize, System::currentTimeMillis);
+    }
+
+    SigningKeyRing(int keySize, LongSupplier clock) {
+        this.keySize = keySize;
+        this.clock = clock;
+        this.state = new State(generate(), generate(), List.of());
+    }
+
+    /** Clave con la que se firman los tokens nuevos */
+    public SigningKey current() {
+        return state.current;
+    }
+
+    /** Clave pública para verificar el {@code kid} indicado, o null si no pertenece al anillo */
+    public RSAPublicKey verificationKey(String kid) {
+        SigningKey key = state.byKid.get(kid);
+        return key != null ? key.getPublicKey() : null;
+    }
+
+    /** Claves que deben aparecer en el JWKS: la siguiente, la activa y las retiradas aún útiles */
+    public List<SigningKey> publishedKeys() {
+        return state.published;
+    }
+
+    /**
+     * La siguiente clave pasa a ser la activa, la activa se retira y se genera una
+     * nueva siguiente. Se descartan las retiradas cuyo último token ya expiró.
+     */
+    @Scheduled(fixedDelayString = "${auth.jwt.key-rotation-interval:P1D}",
+               initialDelayString = "${auth.jwt.key-rotation-interval:P1D}")
+    public synchronized void rotate() {
+        long now = clock.getAsLong();
+        State previous = state;
+        List<SigningKey> retired = new ArrayList<>();
+        retired.add(previous.current.retire(now));
+        for (SigningKey key : previous.retired) {
+            if (key.retiredAt + JwtService.TOKEN_VALIDITY + JwtService.CLOCK_SKEW > now) {
+                retired.add(key);
+            }
+        }
+        state = new State(previous.next, generate(), retired);
+    }
+
+    private SigningKey generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(keySize);
+            return new SigningKey(generator.generateKeyPair(), clock.getAsLong(), 0);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("RSA no disponible", e);
+        }
+    }
+
+    /** Instantánea inmutable del anillo; la rotación la reemplaza completa */
+    private static final class State {
+        private final SigningKey current;
+        private final SigningKey next;
+        private final List<SigningKey> retired;
+        private final List<SigningKey> published;
+        private final Map<String, SigningKey> byKid;
+
+        private State(SigningKey current, SigningKey next, List<SigningKey> retired) {
+            this.current = current;
+            this.next = next;
+            this.retired = List.copyOf(retired);
+            List<SigningKey> keys = new ArrayList<>();
+            keys.add(current);
+            keys.add(next);
+            keys.addAll(retired);
+            this.published = Collections.unmodifiableList(keys);
+            Map<String, SigningKey> index = new LinkedHashMap<>();
+            for (SigningKey key : keys) {
+                index.put(key.getKid(), key);
+            }
+            this.byKid = Map.copyOf(index);
+        }
+    }
+
+    public static final class SigningKey {
+        private final KeyPair keyPair;
+        private final String kid;
+        private final long createdAt;
+        private final long retiredAt;
+
+        private SigningKey(KeyPair keyPair, long createdAt, long retiredAt) {
+            this(keyPair, thumbprint((RSAPublicKey) keyPair.getPublic()), createdAt, retiredAt);
+        }
+
+        private SigningKey(KeyPair keyPair, String kid, long createdAt, long retiredAt) {
+            this.keyPair = keyPair;
+            this.kid = kid;
+            this.createdAt = createdAt;
+            this.retiredAt = retiredAt;
+        }
+
+        private SigningKey retire(long now) {
+            return new SigningKey(keyPair, kid, createdAt, now);
+        }
+
+        public String getKid() { return kid; }
+        public PrivateKey getPrivateKey() { return keyPair.getPrivate(); }
+        public RSAPublicKey getPublicKey() { return (RSAPublicKey) keyPair.getPublic(); }
+        public Instant getCreatedAt() { return Instant.ofEpochMilli(createdAt); }
+
+        /** Representación JWK (RFC 7517) de la clave pública */
+        public Map<String, Object> toJwk() {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            jwk.put("alg", ALGORITHM);
+            jwk.put("n", base64Url(getPublicKey().getModulus()));
+            jwk.put("e", base64Url(getPublicKey().getPublicExponent()));
+            return jwk;
+        }
+
+        /** {@code kid} = huella JWK de la clave (RFC 7638), estable entre instancias */
+        private static String thumbprint(RSAPublicKey key) {
+            String canonical = "{\"e\":\"" + base64Url(key.getPublicExponent())
+                + "\",\"kty\":\"RSA\",\"n\":\"" + base64Url(key.getModulus()) + "\"}";
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 no disponible", e);
+            }
+        }
+
+        // Entero sin signo en big-endian, sin el byte de signo que añade BigInteger
+        private static String base64Url(BigInteger value) {
+            byte[] bytes = value.toByteArray();
+            if (bytes.length > 1 && bytes[0] == 0) {
+                bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.sanctuary.auth.security;
+
+import java.time.Instant;
+
+/**
+ * Punto de extensión que decide si el sujeto de un token sigue siendo válido
+ * cuando la autenticación se resuelve sin consultar la base de datos.
+ */
+public interface SubjectStatusHook {
+
+    /** Indica si los tokens del usuario emitidos en {@code issuedAt} ya no se aceptan */
+    boolean isRevoked(String username, Instant issuedAt);
+
+    /** Invalida todos los tokens emitidos hasta ahora para el usuario */
+    void revoke(String username);
+}
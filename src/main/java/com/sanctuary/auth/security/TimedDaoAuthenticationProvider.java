@@ -0,0 +1,46 @@
+package com.sanctuary.auth.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+/**
+ * {@link DaoAuthenticationProvider} que mide por separado la búsqueda del
+ * usuario y la comprobación de la contraseña durante el login, y aplica el
+ * límite de intentos por cuenta entre ambas.
+ */
+public class TimedDaoAuthenticationProvider extends DaoAuthenticationProvider {
+    private final LoginStageMetrics metrics;
+    private final LoginThrottle loginThrottle;
+
+    public TimedDaoAuthenticationProvider(UserDetailsService userDetailsService, LoginStageMetrics metrics,
+                                          LoginThrottle loginThrottle) {
+        this.metrics = metrics;
+        this.loginThrottle = loginThrottle;
+        setUserDetailsService(username -> {
+            long start = System.nanoTime();
+            try {
+                return userDetailsService.loadUserByUsername(username);
+            } finally {
+                metrics.record(LoginStageMetrics.Stage.LOOKUP, System.nanoTime() - start);
+            }
+        });
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        // Con la cuenta ya resuelta el bucket es el mismo tanto por nombre como por correo
+        loginThrottle.acquireAccount(userDetails.getUsername());
+        long start = System.nanoTime();
+        try {
+            super.additionalAuthenticationChecks(userDetails, authentication);
+        } finally {
+            metrics.record(LoginStageMetrics.Stage.PASSWORD_CHECK, System.nanoTime() - start);
+        }
+        loginThrottle.loginSucceeded(userDetails.getUsername());
+    }
+}
@@ -0,0 +1,86 @@
+package com.sanctuary.auth.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Identificadores ({@code jti}) de tokens revocados antes de su expiración.
+ * Cada entrada se conserva hasta el {@code exp} del token más la tolerancia de
+ * reloj, así que el tamaño depende solo de las revocaciones de la última hora.
+ * A diferencia de {@code ExpiringCache}, nunca descarta entradas vigentes: hacerlo
+ * equivaldría a rehabilitar un token revocado.
+ */
+@Component
+public class TokenDenyList implements MeterBinder {
+    // Cada cuántas revocaciones se barren las entradas caducadas
+    static final int PURGE_INTERVAL = 1024;
+
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private final AtomicInteger revocationsSincePurge = new AtomicInteger();
+    private final AtomicBoolean purging = new AtomicBoolean();
+    private final LongSupplier clock;
+
+    public TokenDenyList() {
+        this(System::currentTimeMillis);
+    }
+
+    TokenDenyList(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Consulta en tiempo constante y sin reservar memoria. Los tokens sin
+     * {@code jti} (emitidos antes de existir el claim) nunca están en la lista.
+     */
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && !revoked.isEmpty() && revoked.containsKey(tokenId);
+    }
+
+    /** Revoca el token hasta su expiración; si ya expiró no hace falta guardarlo */
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long retainUntil = expiresAt.toEpochMilli() + JwtService.CLOCK_SKEW;
+        if (retainUntil <= now) {
+            return;
+        }
+        revoked.merge(tokenId, retainUntil, Math::max);
+        if (revocationsSincePurge.incrementAndGet() >= PURGE_INTERVAL) {
+            purge(now);
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /** Elimina las entradas cuyo token ya no sería aceptado. Solo un hilo barre a la vez */
+    void purge(long now) {
+        if (!purging.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            revocationsSincePurge.set(0);
+            revoked.values().removeIf(retainUntil -> retainUntil <= now);
+        } finally {
+            purging.set(false);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.revocation.denylist.size", revoked, ConcurrentHashMap::size)
+            .description("Tokens revocados que aún no han expirado")
+            .register(registry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.sanctuary.auth.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Principal ligero construido solo con los claims del token, usado en el modo
+ * sin estado para no cargar la entidad {@code AppUser} en cada petición.
+ */
+public final class TokenPrincipal implements UserDetails {
+    // Los roles son pocos, así que las listas de authorities se comparten
+    private static final Map<String, List<GrantedAuthority>> AUTHORITIES = new ConcurrentHashMap<>();
+
+    private final String username;
+    private final List<GrantedAuthority> authorities;
+
+    private TokenPrincipal(String username, List<GrantedAuthority> authorities) {
+        this.username = username;
+        this.authorities = authorities;
+    }
+
+    public static TokenPrincipal from(VerifiedToken token) {
+        String role = token.getRole() != null ? token.getRole() : "ROLE_USER";
+        return new TokenPrincipal(token.getSubject(),
+            AUTHORITIES.computeIfAbsent(role, r -> List.of(new SimpleGrantedAuthority(r))));
+    }
+
+    @Override
+    public String getUsername() { return username; }
+
+    /** El token no transporta credenciales */
+    @Override
+    public String getPassword() { return null; }
+
+    @Override
+    public List<GrantedAuthority> getAuthorities() { return authorities; }
+
+    @Override
+    public String toString() { return "TokenPrincipal[" + username + "]"; }
+}
@@ -0,0 +1,84 @@
+package com.sanctuary.auth.security;
+
+import com.sanctuary.auth.cache.ExpiringCache;
+import com.sanctuary.auth.cache.ExpiringCacheMetrics;
+import com.sanctuary.auth.model.AppUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Caché acotada por tamaño y TTL de los usuarios que carga
+ * {@link UserDetailsServiceImpl}, por username y, mediante un alias, por correo.
+ * Quien modifique usuarios debe invalidarla.
+ */
+@Component
+public class UserDetailsCache implements MeterBinder {
+    private final ExpiringCache<String, CachedUserDetails> cache;
+    // Correo normalizado -> username; la entrada del usuario sigue siendo la única fuente
+    private final ExpiringCache<String, String> usernamesByEmail;
+    private final long ttlMillis;
+
+    public UserDetailsCache(@Value("${auth.user-cache.max-size:1000}") int maxSize,
+                            @Value("${auth.user-cache.ttl:PT5M}") Duration ttl) {
+        this.cache = new ExpiringCache<>(maxSize);
+        this.usernamesByEmail = new ExpiringCache<>(maxSize);
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public CachedUserDetails get(String username) {
+        return cache.get(username);
+    }
+
+    /**
+     * Usuario cuyo correo es {@code email}, o null. El alias puede haber quedado
+     * obsoleto tras un cambio de correo o de nombre, así que solo vale si el
+     * usuario en caché sigue teniendo ese correo.
+     */
+    public CachedUserDetails getByEmail(String email) {
+        String normalized = AppUser.normalizeEmail(email);
+        String username = normalized != null ? usernamesByEmail.get(normalized) : null;
+        if (username == null) {
+            return null;
+        }
+        CachedUserDetails user = cache.get(username);
+        return user != null && normalized.equals(user.getEmail()) ? user : null;
+    }
+
+    public void put(CachedUserDetails user) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        cache.put(user.getUsername(), user, expiresAt);
+        if (user.getEmail() != null) {
+            usernamesByEmail.put(user.getEmail(), user.getUsername(), expiresAt);
+        }
+    }
+
+    /** Elimina al usuario y el alias de su correo */
+    public void invalidate(String username) {
+        if (username != null) {
+            CachedUserDetails removed = cache.invalidate(username);
+            if (removed != null && removed.getEmail() != null) {
+                usernamesByEmail.invalidate(removed.getEmail());
+            }
+        }
+    }
+
+    public void invalidateEmail(String email) {
+        if (email != null) {
+            usernamesByEmail.invalidate(AppUser.normalizeEmail(email));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExpiringCacheMetrics(cache, "user-details").bindTo(registry);
+    }
+
+    public int size() { return cache.size(); }
+    public long hitCount() { return cache.hitCount(); }
+    public long missCount() { return cache.missCount(); }
+    public long evictionCount() { return cache.evictionCount(); }
+}
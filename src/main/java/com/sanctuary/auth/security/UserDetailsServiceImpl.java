@@ -1,25 +1,70 @@
 package com.sanctuary.auth.security;
 
+import com.sanctuary.auth.cache.UserDirectoryVersion;
 import com.sanctuary.auth.repository.UserRepository;
+import com.sanctuary.auth.model.AppUser;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
 
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
-  @Autowired
-  private UserRepository userRepository;
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+  private final UserRepository userRepository;
+  private final UserDetailsCache userDetailsCache;
+  private final UserDirectoryVersion directoryVersion;
 
-  public UserDetailsServiceImpl(UserRepository userRepository) {
+  public UserDetailsServiceImpl(UserRepository userRepository, UserDetailsCache userDetailsCache,
+                                UserDirectoryVersion directoryVersion) {
       this.userRepository = userRepository;
+      this.userDetailsCache = userDetailsCache;
+      this.directoryVersion = directoryVersion;
+  }
+
+  /**
+   * Carga por nombre de usuario o, si el identificador parece un correo, por
+   * correo. Si ningún correo coincide se intenta como nombre de usuario, por los
+   * nombres antiguos que contienen '@'. El principal siempre lleva el username.
+   */
+  @Override
+  public UserDetails loadUserByUsername(String identifier) throws UsernameNotFoundException {
+      boolean email = identifier != null && identifier.indexOf('@') >= 0;
+      CachedUserDetails cached = email ? userDetailsCache.getByEmail(identifier) : null;
+      if (cached == null) {
+          cached = userDetailsCache.get(identifier);
+      }
+      if (cached != null) {
+          return cached;
+      }
+      Optional<AppUser> found = email
+              ? userRepository.findByEmail(AppUser.normalizeEmail(identifier))
+              : Optional.empty();
+      if (found.isEmpty()) {
+          found = userRepository.findByUsername(identifier);
+      }
+      CachedUserDetails user = found
+              .map(CachedUserDetails::from)
+              .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+      userDetailsCache.put(user);
+      return user;
   }
 
+  /** Guarda el hash actualizado tras un login con un hash de coste o algoritmo antiguo */
   @Override
-  public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-      return userRepository.findByUsername(username)
+  @Transactional
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+      AppUser appUser = userRepository.findByUsername(user.getUsername())
               .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+      appUser.setPassword(newPassword);
+      userRepository.save(appUser);
+      userDetailsCache.invalidate(appUser.getUsername());
+      // El nuevo hash incrementa la versión, que forma parte de los listados
+      directoryVersion.changed();
+      return CachedUserDetails.from(appUser);
   }
 }
@@ -0,0 +1,47 @@
+package com.sanctuary.auth.security;
+
+import com.sanctuary.auth.repository.UserRepository;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Autoriza las modificaciones de {@code /api/auth/{id}} solo al propio usuario
+ * o a un administrador. El token solo lleva el username, así que se compara
+ * con el dueño del id sin cargar la entidad.
+ */
+@Component
+public class UserOwnershipAuthorization {
+    private static final String ADMIN = "ROLE_ADMIN";
+
+    private final UserRepository userRepository;
+
+    public UserOwnershipAuthorization(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        Authentication auth = authentication.get();
+        if (auth == null || !auth.isAuthenticated()) {
+            return new AuthorizationDecision(false);
+        }
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            if (ADMIN.equals(authority.getAuthority())) {
+                return new AuthorizationDecision(true);
+            }
+        }
+        Long id;
+        try {
+            id = Long.valueOf(context.getVariables().get("id"));
+        } catch (NumberFormatException e) {
+            return new AuthorizationDecision(false);
+        }
+        Optional<String> owner = userRepository.findUsernameById(id);
+        return new AuthorizationDecision(owner.isPresent() && owner.get().equals(auth.getName()));
+    }
+}
@@ -0,0 +1,53 @@
+package com.sanctuary.auth.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Date;
+
+/** Resultado inmutable de verificar la firma de un JWT una sola vez */
+public final class VerifiedToken {
+    private final String id;
+    private final String subject;
+    private final String role;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+
+    public VerifiedToken(String subject, String role, Instant issuedAt, Instant expiresAt) {
+        this(null, subject, role, issuedAt, expiresAt);
+    }
+
+    public VerifiedToken(String id, String subject, String role, Instant issuedAt, Instant expiresAt) {
+        this.id = id;
+        this.subject = subject;
+        this.role = role;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    static VerifiedToken from(Claims claims) {
+        return new VerifiedToken(
+            claims.getId(),
+            claims.getSubject(),
+            claims.get("role", String.class),
+            toInstant(claims.getIssuedAt()),
+            toInstant(claims.getExpiration())
+        );
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+
+    /** Claim {@code jti}; null en tokens emitidos antes de que existiera */
+    public String getId() { return id; }
+    public String getSubject() { return subject; }
+    public String getRole() { return role; }
+    public Instant getIssuedAt() { return issuedAt; }
+    public Instant getExpiresAt() { return expiresAt; }
+
+    /** Indica si el token expiró antes del instante dado (epoch en milisegundos) */
+    public boolean isExpiredAt(long epochMillis) {
+        return expiresAt != null && expiresAt.toEpochMilli() < epochMillis;
+    }
+}
@@ -1,26 +1,51 @@
 package com.sanctuary.auth.services;
 
+import com.sanctuary.auth.cache.UserDirectoryVersion;
 import com.sanctuary.auth.dto.AuthResponse;
 import com.sanctuary.auth.dto.LoginRequest;
 import com.sanctuary.auth.dto.RegisterRequest;
+import com.sanctuary.auth.dto.RevokeRequest;
+import com.sanctuary.auth.dto.UserPageResponse;
+import com.sanctuary.auth.dto.UserPatchRequest;
 import com.sanctuary.auth.dto.UserShowRequest;
 import com.sanctuary.auth.model.AppUser;
 import com.sanctuary.auth.model.Role;
 import com.sanctuary.auth.repository.UserRepository;
 import com.sanctuary.auth.security.JwtService;
+import com.sanctuary.auth.security.LoginStageMetrics;
+import com.sanctuary.auth.security.SubjectStatusHook;
+import com.sanctuary.auth.security.TokenDenyList;
+import com.sanctuary.auth.security.UserDetailsCache;
+import com.sanctuary.auth.security.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service("authUserService")
 public class AuthUserService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -33,9 +58,43 @@ public class AuthUserService {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private SubjectStatusHook subjectStatusHook;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private LoginStageMetrics loginStageMetrics;
+
+    @Autowired
+    private TokenDenyList tokenDenyList;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private UserExistenceIndex existenceIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserDirectoryVersion directoryVersion;
+
+    /**
+     * Registra el usuario con un único insert. Las restricciones únicas de la tabla
+     * hacen la comprobación de duplicados, también ante registros concurrentes; el
+     * índice de existencia solo evita calcular el hash para valores ya en uso.
+     */
     public String registerUser(RegisterRequest request, Role role) {
-        if (userRepository.findByUsername(request.getUsername()).isPresent()) {
-            throw new IllegalArgumentException("El usuario ya existe.");
+        DuplicateUserException known = existenceIndex.findDuplicate(
+            request.getUsername(), request.getEmail(), request.getIdentificationNumber());
+        if (known != null) {
+            throw known;
         }
         AppUser newUser = new AppUser();
         newUser.setUsername(request.getUsername());
@@ -43,42 +102,153 @@ public class AuthUserService {
         newUser.setIdentificationNumber(request.getIdentificationNumber());
         newUser.setPassword(passwordEncoder.encode(request.getPassword()));
         newUser.setRole(role);
-        userRepository.save(newUser);
+        try {
+            userRepository.saveAndFlush(newUser);
+        } catch (DataIntegrityViolationException e) {
+            DuplicateUserException duplicate = DuplicateUserException.from(e, newUser);
+            throw duplicate != null ? duplicate : e;
+        }
+        existenceIndex.add(newUser.getUsername(), newUser.getEmail(), newUser.getIdentificationNumber());
+        directoryVersion.changed();
         return "Usuario registrado exitosamente.";
     }
 
     public AuthResponse login(LoginRequest request) {
-        authenticationManager.authenticate(
+        // La búsqueda y la comprobación de la contraseña se miden en el proveedor
+        Authentication authentication = authenticationManager.authenticate(
             new UsernamePasswordAuthenticationToken(
-                request.getUsername(),
+                request.identifier(),
                 request.getPassword()
             )
         );
-        AppUser user = userRepository.findByUsername(request.getUsername())
-            .orElseThrow(() -> new IllegalArgumentException("Credenciales inválidas."));
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetails user)) {
+            throw new IllegalArgumentException("Credenciales inválidas.");
+        }
+        long signingStart = System.nanoTime();
         String token = jwtService.generateToken(user);
-        return new AuthResponse(token);
+        loginStageMetrics.record(LoginStageMetrics.Stage.SIGNING, System.nanoTime() - signingStart);
+        return new AuthResponse(token, refreshTokenService.issue(user.getUsername()),
+            jwtService.getAccessTokenTtl().toSeconds());
+    }
+
+    /**
+     * Renueva la sesión sin volver a verificar la contraseña: canjea el refresh
+     * token por uno nuevo de la misma familia y firma un access token. Revocar,
+     * renombrar o borrar un usuario ya elimina sus refresh tokens, así que las
+     * sesiones abiertas después siguen pudiendo renovarse.
+     */
+    public AuthResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(rotation.getUsername());
+        } catch (UsernameNotFoundException e) {
+            throw new InvalidRefreshTokenException();
+        }
+        return new AuthResponse(jwtService.generateToken(user), rotation.getRefreshToken(),
+            jwtService.getAccessTokenTtl().toSeconds());
+    }
+
+    /** Revoca el token con el que se hizo la petición y, si se indica, su refresh token */
+    public void logout(String token, String refreshToken) {
+        revokeToken(jwtService.verify(token));
+        refreshTokenService.revoke(refreshToken);
+    }
+
+    /** Revoca un token concreto, todos los emitidos a un usuario hasta ahora, o ambos */
+    public void revoke(RevokeRequest request) {
+        boolean hasToken = request.getToken() != null && !request.getToken().isBlank();
+        boolean hasUsername = request.getUsername() != null && !request.getUsername().isBlank();
+        if (!hasToken && !hasUsername) {
+            throw new IllegalArgumentException("Debe indicar un token o un usuario.");
+        }
+        if (hasToken) {
+            try {
+                revokeToken(jwtService.verify(request.getToken()));
+            } catch (ExpiredJwtException e) {
+                // Ya no es aceptado, no hay nada que revocar
+            } catch (JwtException e) {
+                throw new IllegalArgumentException("Token inválido.");
+            }
+        }
+        if (hasUsername) {
+            subjectStatusHook.revoke(request.getUsername());
+            refreshTokenService.revokeAll(request.getUsername());
+        }
+    }
+
+    private void revokeToken(VerifiedToken token) {
+        if (token.getId() != null) {
+            tokenDenyList.revoke(token.getId(), token.getExpiresAt());
+        } else if (token.getSubject() != null) {
+            // Token anterior al claim "jti": solo puede revocarse junto con el resto de los del usuario
+            subjectStatusHook.revoke(token.getSubject());
+        }
     }
 
+    @Transactional(readOnly = true)
     public List<UserShowRequest> getAllUsers() {
-        return userRepository.findAll().stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+        return userRepository.findAllViews();
+    }
+
+    /**
+     * Página de usuarios ordenada por id a partir del cursor recibido. Cada página
+     * es una búsqueda por rango sobre el índice, así que las páginas profundas
+     * cuestan lo mismo que la primera.
+     */
+    @Transactional(readOnly = true)
+    public UserPageResponse getUsersPage(String cursor, int size, Role role) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        long afterId = decodeCursor(cursor);
+        // Se pide un registro extra para saber si hay página siguiente
+        Limit limit = Limit.of(pageSize + 1);
+        List<UserShowRequest> rows = role == null
+            ? userRepository.findViewsAfter(afterId, limit)
+            : userRepository.findViewsByRoleAfter(role, afterId, limit);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<UserShowRequest> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1).getId()) : null;
+        return new UserPageResponse(page, nextCursor);
     }
 
+    @Transactional(readOnly = true)
     public Optional<UserShowRequest> getUserById(Long id) {
-        return userRepository.findById(id)
-            .map(this::convertToDTO);
+        return userRepository.findViewById(id);
+    }
+
+    /** Solo la versión, para validar un ETag sin cargar ni mapear el usuario */
+    public Optional<Long> getUserVersion(Long id) {
+        return userRepository.findVersionById(id);
+    }
+
+    /** Búsqueda puntual por correo (sin distinguir mayúsculas) o por número de identificación */
+    @Transactional(readOnly = true)
+    public Optional<UserShowRequest> lookupUser(String email, String identificationNumber) {
+        boolean hasEmail = email != null && !email.isBlank();
+        boolean hasIdentification = identificationNumber != null && !identificationNumber.isBlank();
+        if (hasEmail == hasIdentification) {
+            throw new IllegalArgumentException("Debe indicar un correo o un número de identificación.");
+        }
+        return hasEmail
+            ? userRepository.findViewByEmail(AppUser.normalizeEmail(email))
+            : userRepository.findViewByIdentificationNumber(identificationNumber.trim());
     }
 
     public String updateUser(Long id, RegisterRequest request) {
         AppUser user = userRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado."));
+        String previousUsername = user.getUsername();
+        String previousEmail = user.getEmail();
+        String previousIdentificationNumber = user.getIdentificationNumber();
 
         if (request.getUsername() != null && !request.getUsername().isEmpty()) {
-            Optional<AppUser> existing = userRepository.findByUsername(request.getUsername());
-            if (existing.isPresent() && !existing.get().getId().equals(id)) {
-                throw new IllegalArgumentException("El nombre de usuario ya está en uso.");
+            // Solo se busca al dueño del nombre si el índice no descarta que exista
+            if (existenceIndex.mightContain(UserExistenceIndex.Field.USERNAME, request.getUsername())) {
+                Optional<AppUser> existing = userRepository.findByUsername(request.getUsername());
+                if (existing.isPresent() && !existing.get().getId().equals(id)) {
+                    throw new IllegalArgumentException("El nombre de usuario ya está en uso.");
+                }
             }
             user.setUsername(request.getUsername());
         }
@@ -88,30 +258,134 @@ public class AuthUserService {
         if (request.getIdentificationNumber() != null && !request.getIdentificationNumber().isEmpty()) {
             user.setIdentificationNumber(request.getIdentificationNumber());
         }
-        if (request.getPassword() != null && !request.getPassword().isEmpty()) {
+        boolean passwordChanged = request.getPassword() != null && !request.getPassword().isEmpty();
+        if (passwordChanged) {
             user.setPassword(passwordEncoder.encode(request.getPassword()));
         }
-        userRepository.save(user);
+        try {
+            // La entidad lleva la versión leída; si otra escritura la adelantó el UPDATE no aplica
+            userRepository.save(user);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new StaleUserVersionException();
+        } catch (DataIntegrityViolationException e) {
+            // El correo y la identificación solo los valida el índice único al escribir
+            DuplicateUserException duplicate = DuplicateUserException.from(e, user);
+            throw duplicate != null ? duplicate : e;
+        }
+        afterUpdate(user, previousUsername, previousEmail, previousIdentificationNumber, passwordChanged);
         return "Usuario actualizado exitosamente.";
     }
 
+    /**
+     * Actualización parcial con control optimista. Solo se escriben las columnas que
+     * cambian y el UPDATE lleva "WHERE version = ?", así que una escritura concurrente
+     * se rechaza con {@link StaleUserVersionException} en lugar de perderse. Una
+     * contraseña enviada se hashea una sola vez y cierra las sesiones abiertas.
+     * Los duplicados los detecta el índice único al escribir. La comprobación de
+     * versión y BCrypt se hacen antes de abrir la transacción, que solo carga,
+     * modifica y escribe.
+     */
+    public UserShowRequest patchUser(Long id, UserPatchRequest request, long expectedVersion) {
+        // Proyección: no deja la entidad en el contexto de persistencia de la petición
+        UserShowRequest current = userRepository.findViewById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado."));
+        checkVersion(current.getVersion(), expectedVersion);
+        String previousUsername = current.getUsername();
+        String previousEmail = current.getEmail();
+        String previousIdentificationNumber = current.getIdentificationNumber();
+        boolean passwordChanged = request.getPassword() != null && !request.getPassword().isEmpty();
+        String encodedPassword = passwordChanged ? passwordEncoder.encode(request.getPassword()) : null;
+
+        AppUser user = transactionTemplate.execute(status -> {
+            AppUser loaded = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado."));
+            // Primera carga de la entidad en esta petición: pudo cambiar mientras se calculaba el hash
+            checkVersion(loaded.getVersion(), expectedVersion);
+            // Asignar el mismo valor no ensucia la entidad: Hibernate compara con el estado cargado
+            if (request.getUsername() != null && !request.getUsername().isEmpty()) {
+                loaded.setUsername(request.getUsername());
+            }
+            if (request.getEmail() != null && !request.getEmail().isEmpty()) {
+                loaded.setEmail(request.getEmail());
+            }
+            if (request.getIdentificationNumber() != null && !request.getIdentificationNumber().isEmpty()) {
+                loaded.setIdentificationNumber(request.getIdentificationNumber());
+            }
+            if (encodedPassword != null) {
+                loaded.setPassword(encodedPassword);
+            }
+            try {
+                // Sin cambios no hay UPDATE y la versión se conserva
+                return userRepository.saveAndFlush(loaded);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                throw new StaleUserVersionException();
+            } catch (DataIntegrityViolationException e) {
+                DuplicateUserException duplicate = DuplicateUserException.from(e, loaded);
+                throw duplicate != null ? duplicate : e;
+            }
+        });
+        afterUpdate(user, previousUsername, previousEmail, previousIdentificationNumber, passwordChanged);
+        return new UserShowRequest(user.getId(), user.getUsername(), user.getEmail(),
+            user.getIdentificationNumber(), user.getRole(), user.getVersion());
+    }
+
+    private static void checkVersion(Long version, long expectedVersion) {
+        if (version == null || version != expectedVersion) {
+            throw new StaleUserVersionException();
+        }
+    }
+
+    // Mantiene cachés, índice y sesiones coherentes con los datos guardados
+    private void afterUpdate(AppUser user, String previousUsername, String previousEmail,
+                             String previousIdentificationNumber, boolean passwordChanged) {
+        existenceIndex.add(user.getUsername(), user.getEmail(), user.getIdentificationNumber());
+        directoryVersion.changed();
+        if (!Objects.equals(previousUsername, user.getUsername())
+                || !Objects.equals(previousEmail, user.getEmail())
+                || !Objects.equals(previousIdentificationNumber, user.getIdentificationNumber())) {
+            existenceIndex.removed();
+        }
+        userDetailsCache.invalidate(previousUsername);
+        userDetailsCache.invalidateEmail(previousEmail);
+        // Los tokens emitidos con el nombre anterior dejan de ser válidos
+        boolean renamed = previousUsername != null && !previousUsername.equals(user.getUsername());
+        if (renamed) {
+            userDetailsCache.invalidate(user.getUsername());
+            subjectStatusHook.revoke(previousUsername);
+        }
+        // Un cambio de nombre o de contraseña cierra las sesiones renovables abiertas
+        if (renamed || passwordChanged) {
+            refreshTokenService.revokeAll(previousUsername);
+        }
+    }
+
     public boolean deleteUser(Long id) {
-        if (userRepository.existsById(id)) {
-            userRepository.deleteById(id);
-            return true;
+        Optional<String> username = userRepository.findUsernameById(id);
+        if (username.isEmpty()) {
+            return false;
         }
-        return false;
+        userRepository.deleteById(id);
+        existenceIndex.removed();
+        directoryVersion.changed();
+        userDetailsCache.invalidate(username.get());
+        subjectStatusHook.revoke(username.get());
+        refreshTokenService.revokeAll(username.get());
+        return true;
     }
 
-    // Conversión a DTO
-    private UserShowRequest convertToDTO(AppUser user) {
-        UserShowRequest dto = new UserShowRequest();
-        dto.setId(user.getId());
-        dto.setUsername(user.getUsername());
-        dto.setEmail(user.getEmail());
-        dto.setIdentificationNumber(user.getIdentificationNumber());
-        dto.setRole(user.getRole());
-        return dto;
+    private static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(lastId.toString().getBytes(StandardCharsets.US_ASCII));
     }
-}
 
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido.");
+        }
+    }
+}
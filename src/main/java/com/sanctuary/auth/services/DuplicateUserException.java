@@ -0,0 +1,70 @@
+package com.sanctuary.auth.services;
+
+import com.sanctuary.auth.model.AppUser;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Violación de una restricción única de {@code users}. Indica qué campo
+ * está duplicado para responder con un conflicto claro.
+ */
+public class DuplicateUserException extends IllegalArgumentException {
+    public static final String USERNAME = "username";
+    public static final String EMAIL = "email";
+    public static final String IDENTIFICATION_NUMBER = "identificationNumber";
+
+    private final String field;
+
+    public DuplicateUserException(String field) {
+        super(messageFor(field));
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * Traduce la excepción del insert al campo duplicado. Primero busca el nombre
+     * de la restricción y, si la tabla conserva índices antiguos sin nombre
+     * conocido, el valor duplicado que informa el motor. Devuelve null si la
+     * violación no corresponde a un campo único.
+     */
+    public static DuplicateUserException from(DataIntegrityViolationException ex, AppUser user) {
+        String message = ex.getMostSpecificCause().getMessage();
+        if (message == null) {
+            return null;
+        }
+        String lower = message.toLowerCase(Locale.ROOT);
+        if (lower.contains(AppUser.UK_USERNAME)) {
+            return new DuplicateUserException(USERNAME);
+        }
+        if (lower.contains(AppUser.UK_EMAIL)) {
+            return new DuplicateUserException(EMAIL);
+        }
+        if (lower.contains(AppUser.UK_IDENTIFICATION_NUMBER)) {
+            return new DuplicateUserException(IDENTIFICATION_NUMBER);
+        }
+        // MySQL: "Duplicate entry 'valor' for key ..."
+        if (user.getUsername() != null && message.contains("'" + user.getUsername() + "'")) {
+            return new DuplicateUserException(USERNAME);
+        }
+        if (user.getEmail() != null && message.contains("'" + user.getEmail() + "'")) {
+            return new DuplicateUserException(EMAIL);
+        }
+        if (user.getIdentificationNumber() != null && message.contains("'" + user.getIdentificationNumber() + "'")) {
+            return new DuplicateUserException(IDENTIFICATION_NUMBER);
+        }
+        return null;
+    }
+
+    private static String messageFor(String field) {
+        return switch (field) {
+            case USERNAME -> "El usuario ya existe.";
+            case EMAIL -> "El correo electrónico ya está registrado.";
+            case IDENTIFICATION_NUMBER -> "El número de identificación ya está registrado.";
+            default -> "El usuario ya existe.";
+        };
+    }
+}
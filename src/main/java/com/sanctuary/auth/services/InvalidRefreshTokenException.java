@@ -0,0 +1,9 @@
+package com.sanctuary.auth.services;
+
+/** Refresh token desconocido, expirado, revocado o reutilizado */
+public class InvalidRefreshTokenException extends IllegalArgumentException {
+
+    public InvalidRefreshTokenException() {
+        super("Refresh token inválido.");
+    }
+}
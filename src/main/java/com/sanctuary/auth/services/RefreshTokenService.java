@@ -0,0 +1,130 @@
+package com.sanctuary.auth.services;
+
+import com.sanctuary.auth.model.RefreshToken;
+import com.sanctuary.auth.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Emisión y rotación de refresh tokens. El valor es aleatorio (256 bits), así que
+ * basta un SHA-256 para guardarlo: renovar la sesión cuesta un digest y dos
+ * sentencias indexadas en lugar de una verificación BCrypt.
+ */
+@Service
+public class RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${auth.refresh.ttl:P30D}")
+    private Duration ttl = Duration.ofDays(30);
+
+    private final SecureRandom random = new SecureRandom();
+
+    /** Resultado de canjear un refresh token: su dueño y el token que lo sustituye */
+    public static final class Rotation {
+        private final String username;
+        private final String refreshToken;
+
+        Rotation(String username, String refreshToken) {
+            this.username = username;
+            this.refreshToken = refreshToken;
+        }
+
+        public String getUsername() { return username; }
+        public String getRefreshToken() { return refreshToken; }
+    }
+
+    /** Abre una familia nueva, uno por login */
+    @Transactional
+    public String issue(String username) {
+        return issue(username, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Canjea el token y emite el siguiente de la misma familia. Si el token ya se
+     * había canjeado alguien lo está reutilizando: se revoca la familia completa y
+     * el borrado se confirma aunque se lance la excepción.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new InvalidRefreshTokenException();
+        }
+        RefreshToken current = refreshTokenRepository.findByTokenHash(digest(rawToken))
+            .orElseThrow(InvalidRefreshTokenException::new);
+        Instant now = Instant.now();
+        if (current.getUsedAt() != null || refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            refreshTokenRepository.deleteFamily(current.getFamilyId());
+            throw new InvalidRefreshTokenException();
+        }
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw new InvalidRefreshTokenException();
+        }
+        return new Rotation(current.getUsername(), issue(current.getUsername(), current.getFamilyId()));
+    }
+
+    /** Revoca la familia del token indicado, si existe */
+    @Transactional
+    public void revoke(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHash(digest(rawToken))
+            .ifPresent(token -> refreshTokenRepository.deleteFamily(token.getFamilyId()));
+    }
+
+    /** Cierra todas las sesiones renovables del usuario */
+    @Transactional
+    public void revokeAll(String username) {
+        if (username != null) {
+            refreshTokenRepository.deleteByUsername(username);
+        }
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh.purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpired(Instant.now());
+    }
+
+    private String issue(String username, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(digest(rawToken));
+        token.setFamilyId(familyId);
+        token.setUsername(username);
+        token.setExpiresAt(Instant.now().plus(ttl));
+        refreshTokenRepository.save(token);
+        return rawToken;
+    }
+
+    static String digest(String rawToken) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
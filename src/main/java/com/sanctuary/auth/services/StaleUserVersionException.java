@@ -0,0 +1,9 @@
+package com.sanctuary.auth.services;
+
+/** El usuario cambió desde que el cliente leyó la versión que envía */
+public class StaleUserVersionException extends RuntimeException {
+
+    public StaleUserVersionException() {
+        super("El usuario fue modificado por otra petición; vuelva a leerlo e intente de nuevo.");
+    }
+}
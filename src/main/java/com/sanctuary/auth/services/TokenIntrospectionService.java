@@ -0,0 +1,92 @@
+package com.sanctuary.auth.services;
+
+import com.sanctuary.auth.dto.IntrospectionRequest;
+import com.sanctuary.auth.dto.TokenIntrospection;
+import com.sanctuary.auth.security.JwtService;
+import com.sanctuary.auth.security.SubjectStatusHook;
+import com.sanctuary.auth.security.TokenDenyList;
+import com.sanctuary.auth.security.VerifiedToken;
+
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validación de tokens en lote para el gateway. Aplica las mismas comprobaciones
+ * que {@code JwtAuthFilter} (firma, expiración, lista de revocados y revocación
+ * por usuario) sin consultar la base de datos, salvo que se pida checkUser.
+ */
+@Service
+public class TokenIntrospectionService {
+    static final int DEFAULT_MAX_TOKENS = 100;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenDenyList tokenDenyList;
+
+    @Autowired
+    private SubjectStatusHook subjectStatusHook;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Value("${auth.introspect.max-tokens:" + DEFAULT_MAX_TOKENS + "}")
+    private int maxTokens = DEFAULT_MAX_TOKENS;
+
+    /** Un resultado por token, en el mismo orden de la petición */
+    public List<TokenIntrospection> introspect(IntrospectionRequest request) {
+        List<String> tokens = request.getTokens();
+        if (tokens == null || tokens.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un token.");
+        }
+        if (tokens.size() > maxTokens) {
+            throw new IllegalArgumentException("Se admiten como máximo " + maxTokens + " tokens por petición.");
+        }
+        List<TokenIntrospection> results = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            results.add(introspect(token, request.isCheckUser()));
+        }
+        return results;
+    }
+
+    private TokenIntrospection introspect(String raw, boolean checkUser) {
+        if (raw == null || raw.isEmpty()) {
+            return TokenIntrospection.inactive();
+        }
+        VerifiedToken token;
+        try {
+            token = jwtService.verify(raw);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Incluye los expirados
+            return TokenIntrospection.inactive();
+        }
+        if (token.getSubject() == null
+                || tokenDenyList.isRevoked(token.getId())
+                || subjectStatusHook.isRevoked(token.getSubject(), token.getIssuedAt())) {
+            return TokenIntrospection.inactive();
+        }
+        if (checkUser && !isUserActive(token)) {
+            return TokenIntrospection.inactive();
+        }
+        return TokenIntrospection.active(token.getSubject(), token.getRole(), token.getExpiresAt());
+    }
+
+    // Pasa por la caché de UserDetails, así que un lote del mismo usuario cuesta una consulta
+    private boolean isUserActive(VerifiedToken token) {
+        try {
+            UserDetails user = userDetailsService.loadUserByUsername(token.getSubject());
+            return user.isEnabled() && user.isAccountNonLocked() && jwtService.isTokenValid(token, user);
+        } catch (UsernameNotFoundException e) {
+            return false;
+        }
+    }
+}
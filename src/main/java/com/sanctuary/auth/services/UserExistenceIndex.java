@@ -0,0 +1,261 @@
+package com.sanctuary.auth.services;
+
+import com.sanctuary.auth.cache.BloomFilter;
+import com.sanctuary.auth.model.AppUser;
+import com.sanctuary.auth.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Índice en memoria de usernames, correos y números de identificación en uso.
+ * Un filtro de Bloom por campo responde "seguro que está libre" sin consultar la
+ * base de datos; si dice "puede estar", la respuesta exacta la da el índice único
+ * de la tabla. Se carga con un recorrido en streaming al arrancar y se mantiene
+ * con las altas. Los borrados no se pueden quitar del filtro: solo producen
+ * falsos positivos (una consulta de más) hasta la siguiente reconstrucción.
+ * Mientras no termina la primera carga, todas las comprobaciones van a la base.
+ */
+@Service
+public class UserExistenceIndex implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(UserExistenceIndex.class);
+    private static final String SCAN_SQL = "SELECT username, email, identification_number FROM users";
+
+    /** Campos únicos de {@code users}, con el nombre que usa {@link DuplicateUserException} */
+    public enum Field {
+        USERNAME(DuplicateUserException.USERNAME),
+        EMAIL(DuplicateUserException.EMAIL),
+        IDENTIFICATION_NUMBER(DuplicateUserException.IDENTIFICATION_NUMBER);
+
+        private final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${auth.existence.expected-users:1000000}")
+    private long expectedUsers = 1_000_000;
+
+    @Value("${auth.existence.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    // Mismo criterio que la exportación: Integer.MIN_VALUE hace streaming en MySQL
+    @Value("${auth.export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    // null hasta que termina la primera carga
+    private volatile Filters filters;
+    // Durante una reconstrucción las altas se registran también en los filtros nuevos
+    private volatile Filters building;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong deletionsSinceBuild = new AtomicLong();
+
+    private final LongAdder answeredFromFilter = new LongAdder();
+    private final LongAdder confirmedInDatabase = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    private static final class Filters {
+        private final BloomFilter usernames;
+        private final BloomFilter emails;
+        private final BloomFilter identificationNumbers;
+
+        private Filters(long capacity, double falsePositiveRate) {
+            this.usernames = new BloomFilter(capacity, falsePositiveRate);
+            this.emails = new BloomFilter(capacity, falsePositiveRate);
+            this.identificationNumbers = new BloomFilter(capacity, falsePositiveRate);
+        }
+
+        private BloomFilter of(Field field) {
+            return switch (field) {
+                case USERNAME -> usernames;
+                case EMAIL -> emails;
+                case IDENTIFICATION_NUMBER -> identificationNumbers;
+            };
+        }
+
+        private void put(String username, String email, String identificationNumber) {
+            if (username != null) {
+                usernames.put(key(username));
+            }
+            if (email != null) {
+                emails.put(key(email));
+            }
+            if (identificationNumber != null) {
+                identificationNumbers.put(key(identificationNumber));
+            }
+        }
+    }
+
+    /** false si el valor seguro que no está en uso; true si hay que confirmarlo en la base */
+    public boolean mightContain(Field field, String value) {
+        Filters current = filters;
+        return current == null || current.of(field).mightContain(key(value));
+    }
+
+    /** Existencia exacta; solo consulta la base cuando el filtro no puede descartarla */
+    public boolean exists(Field field, String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        Filters current = filters;
+        if (current != null && !current.of(field).mightContain(key(value))) {
+            answeredFromFilter.increment();
+            return false;
+        }
+        boolean exists = switch (field) {
+            case USERNAME -> userRepository.existsByUsername(value);
+            case EMAIL -> userRepository.existsByEmail(AppUser.normalizeEmail(value));
+            case IDENTIFICATION_NUMBER -> userRepository.existsByIdentificationNumber(value);
+        };
+        if (current != null) {
+            (exists ? confirmedInDatabase : falsePositives).increment();
+        }
+        return exists;
+    }
+
+    /**
+     * Primer campo ya registrado, comprobando antes de calcular el hash de la
+     * contraseña; null si todos están libres. El insert sigue siendo la
+     * comprobación definitiva ante altas concurrentes.
+     */
+    public DuplicateUserException findDuplicate(String username, String email, String identificationNumber) {
+        // Sin filtro cargado la comprobación previa costaría tres consultas por registro
+        if (!isReady()) {
+            return null;
+        }
+        if (exists(Field.USERNAME, username)) {
+            return new DuplicateUserException(DuplicateUserException.USERNAME);
+        }
+        if (exists(Field.EMAIL, email)) {
+            return new DuplicateUserException(DuplicateUserException.EMAIL);
+        }
+        if (exists(Field.IDENTIFICATION_NUMBER, identificationNumber)) {
+            return new DuplicateUserException(DuplicateUserException.IDENTIFICATION_NUMBER);
+        }
+        return null;
+    }
+
+    /** Registra los valores de un usuario creado o modificado */
+    public void add(String username, String email, String identificationNumber) {
+        // Se lee primero "building": si ya es null, el cambio a los filtros nuevos es visible
+        Filters next = building;
+        Filters current = filters;
+        if (next != null) {
+            next.put(username, email, identificationNumber);
+        }
+        if (current != null && current != next) {
+            current.put(username, email, identificationNumber);
+        }
+    }
+
+    /** Un borrado deja valores obsoletos en el filtro hasta reconstruirlo */
+    public void removed() {
+        deletionsSinceBuild.incrementAndGet();
+    }
+
+    public boolean isReady() {
+        return filters != null;
+    }
+
+    // La carga no retrasa el arranque: mientras dura, las comprobaciones van a la base
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread.ofPlatform().name("user-existence-index").daemon().start(this::rebuild);
+    }
+
+    /** Reconstruye solo si hubo borrados o si el número de usuarios superó la capacidad */
+    @Scheduled(fixedDelayString = "${auth.existence.rebuild-interval:PT6H}",
+               initialDelayString = "${auth.existence.rebuild-interval:PT6H}")
+    public void scheduledRebuild() {
+        Filters current = filters;
+        if (current == null || deletionsSinceBuild.get() > 0 || current.usernames.insertions() > expectedUsers) {
+            rebuild();
+        }
+    }
+
+    /** Carga todos los valores en filtros nuevos y los publica al terminar. Solo una a la vez */
+    void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            deletionsSinceBuild.set(0);
+            // Margen para crecer sin degradar la tasa de falsos positivos
+            long capacity = Math.max(expectedUsers, 2 * userRepository.count());
+            Filters next = new Filters(capacity, falsePositiveRate);
+            building = next;
+            long[] rows = new long[1];
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SCAN_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                next.put(rs.getString(1), rs.getString(2), rs.getString(3));
+                rows[0]++;
+            });
+            filters = next;
+            building = null;
+            log.info("Índice de existencia cargado con {} usuarios en {} ms",
+                rows[0], (System.nanoTime() - start) / 1_000_000);
+        } catch (DataAccessException e) {
+            building = null;
+            log.warn("No se pudo cargar el índice de existencia; se consulta la base de datos", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // MySQL compara sin distinguir mayúsculas: el filtro debe cubrir todas las variantes
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.existence.checks", answeredFromFilter, LongAdder::sum)
+            .description("Comprobaciones de existencia según dónde se resolvieron")
+            .tag("result", "filtered")
+            .register(registry);
+        FunctionCounter.builder("auth.existence.checks", confirmedInDatabase, LongAdder::sum)
+            .description("Comprobaciones de existencia según dónde se resolvieron")
+            .tag("result", "confirmed")
+            .register(registry);
+        FunctionCounter.builder("auth.existence.checks", falsePositives, LongAdder::sum)
+            .description("Comprobaciones de existencia según dónde se resolvieron")
+            .tag("result", "false_positive")
+            .register(registry);
+        Gauge.builder("auth.existence.deletions.pending", deletionsSinceBuild, AtomicLong::get)
+            .description("Borrados que siguen marcados en el filtro hasta la próxima reconstrucción")
+            .register(registry);
+    }
+}
@@ -0,0 +1,112 @@
+package com.sanctuary.auth.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sanctuary.auth.dto.UserShowRequest;
+import com.sanctuary.auth.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exporta el directorio de usuarios en streaming. Las filas se leen de un
+ * cursor de solo avance y se escriben según llegan, así que la memoria usada
+ * no depende del número de usuarios.
+ */
+@Service
+public class UserExportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private static final int FLUSH_EVERY = 500;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Con Integer.MIN_VALUE el driver de MySQL entrega las filas una a una en lugar
+    // de cargar todo el resultado; otros drivers necesitan un valor positivo
+    @Value("${auth.export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /** Escribe todos los usuarios en el formato indicado y devuelve cuántos se exportaron */
+    @Transactional(readOnly = true)
+    public long export(Format format, OutputStream out) throws IOException {
+        try (Stream<UserShowRequest> users = streamUsers()) {
+            return format == Format.CSV
+                ? writeCsv(users.iterator(), out)
+                : writeNdjson(users.iterator(), out);
+        }
+    }
+
+    // Cursor de solo avance sobre la proyección: no se crean entidades gestionadas
+    private Stream<UserShowRequest> streamUsers() {
+        return entityManager.createQuery(UserRepository.USER_VIEW + "ORDER BY u.id", UserShowRequest.class)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+            .getResultStream();
+    }
+
+    private long writeNdjson(Iterator<UserShowRequest> users, OutputStream out) throws IOException {
+        // Por defecto cada writeValue vacía el generador: se desactiva para que el
+        // flush solo ocurra cada FLUSH_EVERY filas
+        ObjectWriter writer = objectMapper.writerFor(UserShowRequest.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null)) {
+            while (users.hasNext()) {
+                writer.writeValue(generator, users.next());
+                generator.writeRaw('\n');
+                if (++count == 1 || count % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<UserShowRequest> users, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,username,email,identificationNumber,role\n");
+        while (users.hasNext()) {
+            UserShowRequest user = users.next();
+            writer.write(String.valueOf(user.getId()));
+            writer.write(',');
+            writer.write(Csv.escape(user.getUsername()));
+            writer.write(',');
+            writer.write(Csv.escape(user.getEmail()));
+            writer.write(',');
+            writer.write(Csv.escape(user.getIdentificationNumber()));
+            writer.write(',');
+            writer.write(user.getRole() != null ? user.getRole().name() : "");
+            writer.write('\n');
+            if (++count == 1 || count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+}
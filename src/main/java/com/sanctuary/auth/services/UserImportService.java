@@ -0,0 +1,271 @@
+package com.sanctuary.auth.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanctuary.auth.cache.UserDirectoryVersion;
+import com.sanctuary.auth.dto.ImportReport;
+import com.sanctuary.auth.dto.ImportRowResult;
+import com.sanctuary.auth.dto.ImportUserRequest;
+import com.sanctuary.auth.model.AppUser;
+import com.sanctuary.auth.model.Role;
+import com.sanctuary.auth.security.BoundedHashingPasswordEncoder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Importación masiva de usuarios. Lee la entrada en streaming, calcula los
+ * hashes de cada lote en paralelo con todos los núcleos y escribe las filas con
+ * inserts JDBC por lotes, sin pasar por la generación IDENTITY de Hibernate.
+ */
+@Service
+public class UserImportService {
+
+    public enum Format {
+        JSON,
+        CSV
+    }
+
+    static final int BATCH_SIZE = 500;
+    private static final String INSERT_SQL =
+        "INSERT INTO users (username, email, identification_number, password, role, version) VALUES (?, ?, ?, ?, ?, 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserExistenceIndex existenceIndex;
+
+    @Autowired
+    private UserDirectoryVersion directoryVersion;
+
+    public ImportReport importUsers(InputStream in, Format format) throws IOException {
+        ImportReport report = new ImportReport();
+        Iterator<ImportUserRequest> rows = format == Format.CSV ? readCsv(in) : readJson(in);
+        List<PendingRow> batch = new ArrayList<>(BATCH_SIZE);
+        int rowNumber = 0;
+        try {
+            while (rows.hasNext()) {
+                ImportUserRequest request = rows.next();
+                rowNumber++;
+                String error = validate(request);
+                if (error != null) {
+                    report.add(new ImportRowResult(rowNumber, request.getUsername(),
+                        ImportRowResult.Status.INVALID, null, error));
+                    continue;
+                }
+                batch.add(new PendingRow(rowNumber, request));
+                if (batch.size() == BATCH_SIZE) {
+                    flush(batch, report);
+                    batch.clear();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (!batch.isEmpty()) {
+            flush(batch, report);
+        }
+        report.sortByRow();
+        return report;
+    }
+
+    private void flush(List<PendingRow> batch, ImportReport report) {
+        // BCrypt es la parte costosa: se reparte entre todos los núcleos
+        PasswordEncoder encoder = unboundedEncoder();
+        List<AppUser> users = batch.parallelStream()
+            .map(row -> toUser(row.request, encoder))
+            .toList();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, users, users.size(), UserImportService::bind));
+            for (int i = 0; i < batch.size(); i++) {
+                AppUser user = users.get(i);
+                existenceIndex.add(user.getUsername(), user.getEmail(), user.getIdentificationNumber());
+                report.add(new ImportRowResult(batch.get(i).row, user.getUsername(),
+                    ImportRowResult.Status.CREATED, null, null));
+            }
+        } catch (DataAccessException e) {
+            // El lote se revirtió completo: se reintenta fila a fila para informar cada una
+            for (int i = 0; i < batch.size(); i++) {
+                report.add(insertOne(batch.get(i).row, users.get(i)));
+            }
+        }
+        // Un cambio por lote: cada lote ya está confirmado
+        directoryVersion.changed();
+    }
+
+    private ImportRowResult insertOne(int row, AppUser user) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, user));
+            existenceIndex.add(user.getUsername(), user.getEmail(), user.getIdentificationNumber());
+            return new ImportRowResult(row, user.getUsername(), ImportRowResult.Status.CREATED, null, null);
+        } catch (DataIntegrityViolationException e) {
+            DuplicateUserException duplicate = DuplicateUserException.from(e, user);
+            if (duplicate != null) {
+                return new ImportRowResult(row, user.getUsername(), ImportRowResult.Status.DUPLICATE,
+                    duplicate.getField(), duplicate.getMessage());
+            }
+            return new ImportRowResult(row, user.getUsername(), ImportRowResult.Status.ERROR, null,
+                "No se pudo guardar el usuario.");
+        } catch (DataAccessException e) {
+            return new ImportRowResult(row, user.getUsername(), ImportRowResult.Status.ERROR, null,
+                "No se pudo guardar el usuario.");
+        }
+    }
+
+    private static void bind(PreparedStatement ps, AppUser user) throws SQLException {
+        ps.setString(1, user.getUsername());
+        ps.setString(2, user.getEmail());
+        ps.setString(3, user.getIdentificationNumber());
+        ps.setString(4, user.getPassword());
+        ps.setString(5, user.getRole().name());
+    }
+
+    private static AppUser toUser(ImportUserRequest request, PasswordEncoder encoder) {
+        AppUser user = new AppUser();
+        user.setUsername(request.getUsername());
+        user.setEmail(request.getEmail());
+        user.setIdentificationNumber(request.getIdentificationNumber());
+        user.setPassword(encoder.encode(request.getPassword()));
+        user.setRole(parseRole(request.getRole()));
+        return user;
+    }
+
+    /**
+     * La importación ya reparte el trabajo entre los núcleos; se usa el encoder sin
+     * el límite de la cola de login para no rechazar filas con 429.
+     */
+    private PasswordEncoder unboundedEncoder() {
+        return passwordEncoder instanceof BoundedHashingPasswordEncoder bounded
+            ? bounded.getDelegate()
+            : passwordEncoder;
+    }
+
+    private static String validate(ImportUserRequest request) {
+        if (isBlank(request.getUsername())) {
+            return "El nombre de usuario es obligatorio.";
+        }
+        if (isBlank(request.getEmail())) {
+            return "El correo electrónico es obligatorio.";
+        }
+        if (isBlank(request.getIdentificationNumber())) {
+            return "El número de identificación es obligatorio.";
+        }
+        if (isBlank(request.getPassword())) {
+            return "La contraseña es obligatoria.";
+        }
+        if (!isBlank(request.getRole()) && parseRole(request.getRole()) == null) {
+            return "Rol desconocido.";
+        }
+        return null;
+    }
+
+    private static Role parseRole(String role) {
+        if (isBlank(role)) {
+            return Role.USER;
+        }
+        try {
+            return Role.valueOf(role.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    // Un arreglo JSON de objetos, leído elemento a elemento
+    private Iterator<ImportUserRequest> readJson(InputStream in) throws IOException {
+        return objectMapper.readerFor(ImportUserRequest.class).readValues(in);
+    }
+
+    // CSV con cabecera; las columnas se localizan por nombre
+    private Iterator<ImportUserRequest> readCsv(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            return List.<ImportUserRequest>of().iterator();
+        }
+        List<String> columns = Csv.parseLine(header.strip());
+        return new Iterator<>() {
+            private String next = advance();
+
+            private String advance() {
+                try {
+                    String line;
+                    do {
+                        line = reader.readLine();
+                    } while (line != null && line.isBlank());
+                    return line;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public ImportUserRequest next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                List<String> values = Csv.parseLine(next);
+                next = advance();
+                ImportUserRequest request = new ImportUserRequest();
+                for (int i = 0; i < columns.size() && i < values.size(); i++) {
+                    String value = values.get(i).strip();
+                    switch (columns.get(i).strip()) {
+                        case "username" -> request.setUsername(value);
+                        case "email" -> request.setEmail(value);
+                        case "identificationNumber" -> request.setIdentificationNumber(value);
+                        case "password" -> request.setPassword(value);
+                        case "role" -> request.setRole(value);
+                        default -> { }
+                    }
+                }
+                return request;
+            }
+        };
+    }
+
+    private static final class PendingRow {
+        private final int row;
+        private final ImportUserRequest request;
+
+        private PendingRow(int row, ImportUserRequest request) {
+            this.row = row;
+            this.request = request;
+        }
+    }
+}
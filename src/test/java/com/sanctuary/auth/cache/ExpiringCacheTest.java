@@ -0,0 +1,95 @@
+package com.sanctuary.auth.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTest {
+
+    private AtomicLong now;
+    private ExpiringCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000);
+        cache = new ExpiringCache<>(4, now::get);
+    }
+
+    @Test
+    void testGet_BeforeExpiry_ShouldReturnValue() {
+        // Arrange
+        cache.put("a", "value", 2_000);
+
+        // Act & Assert
+        assertEquals("value", cache.get("a"));
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    void testGet_AfterExpiry_ShouldReturnNullAndEvict() {
+        // Arrange
+        cache.put("a", "value", 2_000);
+        now.set(2_000);
+
+        // Act & Assert
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void testPut_WhenAlreadyExpired_ShouldNotStore() {
+        // Act
+        cache.put("a", "value", 500);
+
+        // Assert
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testPut_WhenFull_ShouldStayBounded() {
+        // Act
+        for (int i = 0; i < 20; i++) {
+            cache.put("k" + i, "v" + i, 5_000);
+        }
+
+        // Assert
+        assertTrue(cache.size() <= 4);
+        assertEquals("v19", cache.get("k19"));
+        assertTrue(cache.evictionCount() >= 16);
+    }
+
+    @Test
+    void testPut_WhenFull_ShouldDropExpiredEntriesFirst() {
+        // Arrange
+        cache.put("old1", "x", 1_500);
+        cache.put("old2", "x", 1_500);
+        cache.put("live1", "x", 9_000);
+        cache.put("live2", "x", 9_000);
+        now.set(1_600);
+
+        // Act
+        cache.put("new", "x", 9_000);
+
+        // Assert
+        assertEquals("x", cache.get("live1"));
+        assertEquals("x", cache.get("live2"));
+        assertEquals("x", cache.get("new"));
+    }
+
+    @Test
+    void testInvalidate_ShouldRemoveEntry() {
+        // Arrange
+        cache.put("a", "value", 2_000);
+
+        // Act
+        cache.invalidate("a");
+
+        // Assert
+        assertNull(cache.get("a"));
+    }
+}
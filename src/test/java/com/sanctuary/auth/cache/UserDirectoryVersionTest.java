@@ -0,0 +1,64 @@
+package com.sanctuary.auth.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserDirectoryVersionTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testEtag_ShouldBeWeakAndStableWithoutChanges() {
+        // Arrange
+        UserDirectoryVersion version = new UserDirectoryVersion();
+
+        // Act
+        String first = version.etag();
+        String second = version.etag();
+
+        // Assert
+        assertEquals(first, second);
+        assertTrue(first.startsWith("W/\"") && first.endsWith("\""));
+    }
+
+    @Test
+    void testChanged_OutsideTransaction_ShouldChangeEtagImmediately() {
+        // Arrange
+        UserDirectoryVersion version = new UserDirectoryVersion();
+        String before = version.etag();
+
+        // Act
+        version.changed();
+
+        // Assert
+        assertNotEquals(before, version.etag());
+    }
+
+    @Test
+    void testChanged_InsideTransaction_ShouldWaitForCompletion() {
+        // Arrange
+        UserDirectoryVersion version = new UserDirectoryVersion();
+        String before = version.etag();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        version.changed();
+        String duringTransaction = version.etag();
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        // Assert
+        assertEquals(before, duringTransaction);
+        assertNotEquals(before, version.etag());
+    }
+}
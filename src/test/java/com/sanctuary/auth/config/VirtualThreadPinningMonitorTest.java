@@ -0,0 +1,75 @@
+package com.sanctuary.auth.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadPinningMonitorTest {
+
+    private final VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(20));
+
+    @Test
+    void testRecord_ShouldCountPinnedEventsByLocation() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        monitor.bindTo(registry);
+
+        // Act
+        monitor.record(Duration.ofMillis(30), true);
+        monitor.record(Duration.ofMillis(50), false);
+        monitor.record(Duration.ofMillis(25), false);
+
+        // Assert
+        assertEquals(1.0, registry.get("auth.virtual.threads.pinned").tag("location", "app").functionCounter().count());
+        assertEquals(2.0, registry.get("auth.virtual.threads.pinned").tag("location", "other").functionCounter().count());
+        assertEquals(3, monitor.getPinnedCount());
+        assertEquals(Duration.ofMillis(50).toNanos(), monitor.getMaxPinnedNanos());
+    }
+
+    @Test
+    void testStartAndStop_ShouldOpenAndCloseTheRecordingStream() {
+        // Act
+        monitor.start();
+        boolean runningAfterStart = monitor.isRunning();
+        monitor.stop();
+
+        // Assert
+        assertTrue(runningAfterStart);
+        assertFalse(monitor.isRunning());
+        // Detenerlo de nuevo o destruir el bean ya detenido no falla
+        assertDoesNotThrow(() -> monitor.stop());
+        assertDoesNotThrow(() -> monitor.destroy());
+    }
+
+    @Test
+    void testOnPinned_WithSynchronizedSleepInApp_ShouldCountAppEvent() throws Exception {
+        // Arrange
+        Object lock = new Object();
+        monitor.start();
+        try {
+            // Act: dormir dentro de synchronized fija el hilo virtual a su portador
+            Thread.ofVirtual().start(() -> {
+                synchronized (lock) {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }).join();
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (monitor.getAppPinnedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+        } finally {
+            monitor.stop();
+        }
+
+        // Assert
+        assertEquals(1, monitor.getAppPinnedCount());
+        assertTrue(monitor.getMaxPinnedNanos() >= Duration.ofMillis(20).toNanos());
+    }
+}
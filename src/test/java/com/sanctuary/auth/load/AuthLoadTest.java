@@ -0,0 +1,349 @@
+package com.sanctuary.auth.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba de carga de extremo a extremo: arranca la aplicación sobre H2 y recorre
+ * la ruta completa (CorsFilter, cadena de seguridad, JwtAuthFilter, controlador y
+ * JPA) con una mezcla fija de peticiones y concurrencia constante.
+ *
+ * <p>Se configura con propiedades de sistema ({@code -Dload.*}):
+ * <ul>
+ *   <li>{@code load.concurrency}, {@code load.warmup}, {@code load.duration}, {@code load.users}</li>
+ *   <li>{@code load.mix}: pesos por endpoint, p. ej. {@code register=1,login=2,get=12,update=2}</li>
+ *   <li>{@code load.budget.<endpoint>.<p50|p99|p999>}: latencia máxima en ms; sin endpoint aplica a todos</li>
+ *   <li>{@code load.budget.<endpoint>.min-throughput}: peticiones por segundo mínimas</li>
+ *   <li>{@code load.budget.max-error-rate}: fracción de respuestas fallidas tolerada</li>
+ * </ul>
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:load;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.open-in-view=false",
+    // H2 no admite el fetch size negativo con el que MySQL hace streaming
+    "auth.export.fetch-size=1000",
+    // Coste fijo para que los resultados sean comparables entre máquinas
+    "auth.password.bcrypt-strength=10",
+    // Todo el tráfico sale de 127.0.0.1: se mide el servicio, no el limitador
+    "auth.throttle.enabled=false"
+})
+public class AuthLoadTest {
+
+    enum Endpoint {
+        REGISTER,
+        LOGIN,
+        GET,
+        UPDATE
+    }
+
+    private static final String ORIGIN = "http://localhost:4000";
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    // Presupuestos por defecto; se sustituyen con -Dload.budget.*
+    private static final Map<String, String> DEFAULTS = Map.of(
+        "load.budget.register.p99", "1500",
+        "load.budget.login.p99", "1500",
+        "load.budget.get.p99", "250",
+        "load.budget.update.p99", "400",
+        "load.budget.max-error-rate", "0"
+    );
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    private final Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+    private final AtomicLong registrations = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+
+    private List<SeedUser> seedUsers;
+    private AtomicReferenceArray<String> tokens;
+
+    @Test
+    void authEndpoints_ShouldStayWithinLatencyBudgets() throws Exception {
+        // Arrange
+        int concurrency = intSetting("load.concurrency", 16);
+        Duration warmup = Duration.parse(setting("load.warmup", "PT5S"));
+        Duration duration = Duration.parse(setting("load.duration", "PT20S"));
+        Map<Endpoint, Integer> mix = parseMix(setting("load.mix", "register=1,login=2,get=12,update=2"));
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(endpoint, new LongAdder());
+        }
+        seed(intSetting("load.users", 50));
+
+        // Act
+        runPhase(concurrency, warmup, mix);
+        resetStats();
+        long startedAt = System.nanoTime();
+        runPhase(concurrency, duration, mix);
+        double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+
+        // Assert
+        List<String> violations = new ArrayList<>();
+        System.out.printf(Locale.ROOT, "%n%-9s %9s %9s %9s %9s %9s %7s%n",
+            "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p999 ms", "errors");
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = recorders.get(endpoint).getIntervalHistogram();
+            long count = histogram.getTotalCount();
+            long failed = errors.get(endpoint).sum();
+            double throughput = count / elapsedSeconds;
+            System.out.printf(Locale.ROOT, "%-9s %9d %9.1f %9.2f %9.2f %9.2f %7d%n",
+                name(endpoint), count, throughput,
+                millis(histogram, 50.0), millis(histogram, 99.0), millis(histogram, 99.9), failed);
+            if (mix.getOrDefault(endpoint, 0) > 0) {
+                checkBudgets(endpoint, histogram, throughput, failed, violations);
+            }
+        }
+        assertTrue(violations.isEmpty(), "Presupuestos superados:\n" + String.join("\n", violations));
+    }
+
+    private void checkBudgets(Endpoint endpoint, Histogram histogram, double throughput, long failed,
+                              List<String> violations) {
+        long count = histogram.getTotalCount();
+        if (count == 0) {
+            violations.add(name(endpoint) + ": sin peticiones completadas");
+            return;
+        }
+        for (Map.Entry<String, Double> percentile : Map.of("p50", 50.0, "p99", 99.0, "p999", 99.9).entrySet()) {
+            String budget = budget(endpoint, percentile.getKey());
+            double observed = millis(histogram, percentile.getValue());
+            if (budget != null && observed > Double.parseDouble(budget)) {
+                violations.add(String.format(Locale.ROOT, "%s %s = %.2f ms > %s ms",
+                    name(endpoint), percentile.getKey(), observed, budget));
+            }
+        }
+        String minThroughput = budget(endpoint, "min-throughput");
+        if (minThroughput != null && throughput < Double.parseDouble(minThroughput)) {
+            violations.add(String.format(Locale.ROOT, "%s throughput = %.1f req/s < %s req/s",
+                name(endpoint), throughput, minThroughput));
+        }
+        double errorRate = (double) failed / (count + failed);
+        double maxErrorRate = Double.parseDouble(setting("load.budget.max-error-rate", "0"));
+        if (errorRate > maxErrorRate) {
+            violations.add(String.format(Locale.ROOT, "%s errores = %.4f > %s",
+                name(endpoint), errorRate, maxErrorRate));
+        }
+    }
+
+    // Usuarios registrados de antemano con su id y un token vigente
+    private void seed(int users) throws Exception {
+        seedUsers = new ArrayList<>(users);
+        tokens = new AtomicReferenceArray<>(users);
+        for (int i = 0; i < users; i++) {
+            String username = "seed" + i;
+            expectOk(send(post("/api/auth/register", registerBody(username, "seed" + i + "@load.test", "S" + i))));
+        }
+        JsonNode all = objectMapper.readTree(expectOk(send(get("/api/auth/allUsers", null))).body());
+        for (JsonNode user : all) {
+            if (user.get("username").asText().startsWith("seed")) {
+                seedUsers.add(new SeedUser(user.get("id").asLong(), user.get("username").asText()));
+            }
+        }
+        for (int i = 0; i < seedUsers.size(); i++) {
+            tokens.set(i, login(seedUsers.get(i)));
+        }
+    }
+
+    private void runPhase(int concurrency, Duration duration, Map<Endpoint, Integer> mix) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        execute(pick(mix, totalWeight));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void execute(Endpoint endpoint) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextInt(seedUsers.size());
+        SeedUser user = seedUsers.get(index);
+        HttpRequest request = switch (endpoint) {
+            case REGISTER -> {
+                long n = registrations.incrementAndGet();
+                yield post("/api/auth/register", registerBody("load" + n, "load" + n + "@load.test", "L" + n));
+            }
+            case LOGIN -> post("/api/auth/login", loginBody(user.username));
+            case GET -> get("/api/auth/" + user.id, tokens.get(index));
+            case UPDATE -> put("/api/auth/" + user.id,
+                "{\"email\":\"" + user.username + "+" + updates.incrementAndGet() + "@load.test\"}",
+                tokens.get(index));
+        };
+        long startedAt = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = send(request);
+        } catch (java.io.IOException e) {
+            errors.get(endpoint).increment();
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt);
+        if (response.statusCode() >= 400) {
+            errors.get(endpoint).increment();
+            return;
+        }
+        recorders.get(endpoint).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+        if (endpoint == Endpoint.LOGIN) {
+            tokens.set(index, objectMapper.readTree(response.body()).get("token").asText());
+        }
+    }
+
+    private void resetStats() {
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(LongAdder::reset);
+    }
+
+    private String login(SeedUser user) throws Exception {
+        HttpResponse<String> response = expectOk(send(post("/api/auth/login", loginBody(user.username))));
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return builder(path, null).POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest put(String path, String json, String token) {
+        return builder(path, token).PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return builder(path, token).GET().build();
+    }
+
+    // Con cabecera Origin para que CorsFilter procese la petición como en producción
+    private HttpRequest.Builder builder(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .timeout(Duration.ofSeconds(30))
+            .header("Origin", ORIGIN)
+            .header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> expectOk(HttpResponse<String> response) {
+        assertEquals(200, response.statusCode(), () -> response.uri() + " -> " + response.body());
+        return response;
+    }
+
+    private static String registerBody(String username, String email, String identificationNumber) {
+        return "{\"username\":\"" + username + "\",\"email\":\"" + email
+            + "\",\"identificationNumber\":\"" + identificationNumber + "\",\"password\":\"password\"}";
+    }
+
+    private static String loginBody(String username) {
+        return "{\"username\":\"" + username + "\",\"password\":\"password\"}";
+    }
+
+    private static Endpoint pick(Map<Endpoint, Integer> mix, int totalWeight) {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Mezcla de carga vacía");
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(Endpoint.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("load.mix no tiene ningún endpoint con peso positivo");
+        }
+        return mix;
+    }
+
+    // Presupuesto específico del endpoint o, en su defecto, el general
+    private static String budget(Endpoint endpoint, String metric) {
+        String specific = setting("load.budget." + name(endpoint) + "." + metric, null);
+        return specific != null ? specific : setting("load.budget." + metric, null);
+    }
+
+    private static String setting(String key, String fallback) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            value = DEFAULTS.get(key);
+        }
+        return value != null ? value : fallback;
+    }
+
+    private static int intSetting(String key, int fallback) {
+        return Integer.parseInt(setting(key, String.valueOf(fallback)));
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static String name(Endpoint endpoint) {
+        return endpoint.name().toLowerCase(Locale.ROOT);
+    }
+
+    private record SeedUser(long id, String username) {
+    }
+}
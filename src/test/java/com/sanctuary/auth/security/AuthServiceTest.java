@@ -13,8 +13,10 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Collections;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -28,9 +30,6 @@ public class AuthServiceTest {
     @Mock
     private AuthenticationManager authenticationManager;
 
-    @Mock
-    private UserDetailsServiceImpl userDetailsService;
-
     @Mock
     private PasswordEncoder passwordEncoder;
 
@@ -70,14 +69,14 @@ public class AuthServiceTest {
         // Arrange
         String username = "testuser";
         String password = "password";
-        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+            .thenReturn(new UsernamePasswordAuthenticationToken(userDetails, null, Collections.emptyList()));
 
         // Act
         UserDetails result = authService.authenticate(username, password);
 
         // Assert
-        assertNotNull(result);
+        assertSame(userDetails, result);
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userDetailsService).loadUserByUsername(username);
     }
 }
\ No newline at end of file
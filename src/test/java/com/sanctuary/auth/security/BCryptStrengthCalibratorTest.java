@@ -0,0 +1,23 @@
+package com.sanctuary.auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BCryptStrengthCalibratorTest {
+
+    @Test
+    void testCalibrate_WithTinyTarget_ShouldNotGoBelowMinimum() {
+        assertEquals(BCryptStrengthCalibrator.MIN_STRENGTH, BCryptStrengthCalibrator.calibrate(1));
+    }
+
+    @Test
+    void testCalibrate_WithLargerTarget_ShouldIncreaseStrength() {
+        // Act
+        int strength = BCryptStrengthCalibrator.calibrate(60_000);
+
+        // Assert
+        assertTrue(strength > BCryptStrengthCalibrator.MIN_STRENGTH);
+        assertTrue(strength <= BCryptStrengthCalibrator.MAX_STRENGTH);
+    }
+}
@@ -0,0 +1,61 @@
+package com.sanctuary.auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemorySubjectStatusHookTest {
+
+    private final InMemorySubjectStatusHook hook = new InMemorySubjectStatusHook();
+
+    @Test
+    void testIsRevoked_WhenNeverRevoked_ShouldReturnFalse() {
+        assertFalse(hook.isRevoked("testuser", Instant.now()));
+    }
+
+    @Test
+    void testIsRevoked_ForTokenIssuedBeforeRevocation_ShouldReturnTrue() {
+        // Arrange
+        Instant issuedAt = Instant.now().minusSeconds(60);
+
+        // Act
+        hook.revoke("testuser");
+
+        // Assert
+        assertTrue(hook.isRevoked("testuser", issuedAt));
+        assertFalse(hook.isRevoked("otheruser", issuedAt));
+    }
+
+    @Test
+    void testIsRevoked_ForTokenIssuedAfterRevocation_ShouldReturnFalse() {
+        // Act
+        hook.revoke("testuser");
+
+        // Assert
+        assertFalse(hook.isRevoked("testuser", Instant.now().plusSeconds(5)));
+    }
+
+    @Test
+    void testRevoke_ShouldPurgeExpiredRevocationsButNeverEvictLiveOnes() {
+        // Arrange
+        AtomicLong now = new AtomicLong(1_000_000L);
+        InMemorySubjectStatusHook timedHook = new InMemorySubjectStatusHook(now::get);
+        timedHook.revoke("old");
+        now.addAndGet(JwtService.TOKEN_VALIDITY + JwtService.CLOCK_SKEW);
+        Instant issuedBefore = Instant.ofEpochMilli(now.get() - 1_000);
+
+        // Act: más revocaciones vigentes que el antiguo límite de la caché
+        for (int i = 0; i < 150_000; i++) {
+            timedHook.revoke("user-" + i);
+        }
+
+        // Assert
+        assertTrue(timedHook.isRevoked("user-0", issuedBefore));
+        assertTrue(timedHook.isRevoked("user-149999", issuedBefore));
+        assertFalse(timedHook.isRevoked("old", issuedBefore));
+        assertEquals(150_000, timedHook.size());
+    }
+}
@@ -1,5 +1,6 @@
 package com.sanctuary.auth.security;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,7 +20,11 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 
 import java.io.IOException;
+import java.time.Instant;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,11 +48,22 @@ public class JwtAuthFilterTest {
     @Mock
     private UserDetails userDetails;
 
+    @Mock
+    private SubjectStatusHook subjectStatusHook;
+
+    @Mock
+    private TokenDenyList tokenDenyList;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private JwtAuthFilter jwtAuthFilter;
 
     private final String validToken = "valid.jwt.token";
     private final String validUsername = "testuser";
+    private final VerifiedToken verifiedToken = new VerifiedToken(
+            validUsername, "ROLE_USER", Instant.now(), Instant.now().plusSeconds(3600));
 
     @BeforeEach
     void setUp() {
@@ -62,6 +79,7 @@ public class JwtAuthFilterTest {
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
+        assertEquals(1, outcomeCount("missing"));
         verify(filterChain).doFilter(request, response);
         verifyNoInteractions(jwtService);
         verifyNoInteractions(userDetailsService);
@@ -85,33 +103,35 @@ public class JwtAuthFilterTest {
     void testDoFilterInternal_WithValidToken_ShouldAuthenticateUser() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtService.extractUsername(validToken)).thenReturn(validUsername);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken);
         when(userDetailsService.loadUserByUsername(validUsername)).thenReturn(userDetails);
-        when(jwtService.validateToken(validToken, userDetails)).thenReturn(true);
+        when(jwtService.isTokenValid(verifiedToken, userDetails)).thenReturn(true);
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
+        assertEquals(1, outcomeCount("accepted"));
         verify(filterChain).doFilter(request, response);
-        verify(jwtService).extractUsername(validToken);
+        verify(jwtService).verify(validToken);
         verify(userDetailsService).loadUserByUsername(validUsername);
-        verify(jwtService).validateToken(validToken, userDetails);
+        verify(jwtService).isTokenValid(verifiedToken, userDetails);
     }
 
     @Test
     void testDoFilterInternal_WithExpiredToken_ShouldSetHeaderAndContinueChain() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtService.extractUsername(validToken)).thenThrow(new ExpiredJwtException(null, null, "Token expired"));
+        when(jwtService.verify(validToken)).thenThrow(new ExpiredJwtException(null, null, "Token expired"));
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
+        assertEquals(1, outcomeCount("expired"));
         verify(filterChain).doFilter(request, response);
         verify(response).setHeader("Token-Expired", "true");
-        verify(jwtService).extractUsername(validToken);
+        verify(jwtService).verify(validToken);
         verifyNoInteractions(userDetailsService);
     }
 
@@ -119,14 +139,15 @@ public class JwtAuthFilterTest {
     void testDoFilterInternal_WithInvalidToken_ShouldContinueChain() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtService.extractUsername(validToken)).thenThrow(new JwtException("Invalid token"));
+        when(jwtService.verify(validToken)).thenThrow(new JwtException("Invalid token"));
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
+        assertEquals(1, outcomeCount("invalid"));
         verify(filterChain).doFilter(request, response);
-        verify(jwtService).extractUsername(validToken);
+        verify(jwtService).verify(validToken);
         verifyNoInteractions(userDetailsService);
     }
 
@@ -134,17 +155,78 @@ public class JwtAuthFilterTest {
     void testDoFilterInternal_WithValidTokenButInvalidUser_ShouldContinueChain() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtService.extractUsername(validToken)).thenReturn(validUsername);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken);
         when(userDetailsService.loadUserByUsername(validUsername)).thenReturn(userDetails);
-        when(jwtService.validateToken(validToken, userDetails)).thenReturn(false);
+        when(jwtService.isTokenValid(verifiedToken, userDetails)).thenReturn(false);
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
+        assertEquals(1, outcomeCount("rejected"));
         verify(filterChain).doFilter(request, response);
-        verify(jwtService).extractUsername(validToken);
+        verify(jwtService).verify(validToken);
         verify(userDetailsService).loadUserByUsername(validUsername);
-        verify(jwtService).validateToken(validToken, userDetails);
+        verify(jwtService).isTokenValid(verifiedToken, userDetails);
+    }
+
+    @Test
+    void testDoFilterInternal_Stateless_ShouldAuthenticateFromClaimsWithoutLoadingUser() throws ServletException, IOException {
+        // Arrange
+        jwtAuthFilter.setStateless(true);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken);
+        when(subjectStatusHook.isRevoked(validUsername, verifiedToken.getIssuedAt())).thenReturn(false);
+        when(jwtService.isTokenValid(eq(verifiedToken), any(TokenPrincipal.class))).thenReturn(true);
+
+        // Act
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(userDetailsService);
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertInstanceOf(TokenPrincipal.class, principal);
+        assertEquals(validUsername, ((TokenPrincipal) principal).getUsername());
+    }
+
+    @Test
+    void testDoFilterInternal_StatelessWithRevokedSubject_ShouldNotAuthenticate() throws ServletException, IOException {
+        // Arrange
+        jwtAuthFilter.setStateless(true);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken);
+        when(subjectStatusHook.isRevoked(validUsername, verifiedToken.getIssuedAt())).thenReturn(true);
+
+        // Act
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(userDetailsService);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void testDoFilterInternal_WithRevokedTokenId_ShouldNotAuthenticate() throws ServletException, IOException {
+        // Arrange
+        VerifiedToken token = new VerifiedToken("jti-1", validUsername, "ROLE_USER",
+                Instant.now(), Instant.now().plusSeconds(3600));
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtService.verify(validToken)).thenReturn(token);
+        when(tokenDenyList.isRevoked("jti-1")).thenReturn(true);
+
+        // Act
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertEquals(1, outcomeCount("revoked"));
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(userDetailsService);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private double outcomeCount(String outcome) {
+        return meterRegistry.get("auth.filter.tokens").tag("outcome", outcome).counter().count();
     }
-}
\ No newline at end of file
+}
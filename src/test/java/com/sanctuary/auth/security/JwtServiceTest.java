@@ -1,21 +1,40 @@
 package com.sanctuary.auth.security;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
 import java.util.Collections;
+import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 public class JwtServiceTest {
 
+    // Generar claves RSA es caro: un solo anillo para toda la clase
+    private static final SigningKeyRing KEY_RING = new SigningKeyRing(2048);
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private SigningKeyRing keyRing = KEY_RING;
+
     @InjectMocks
     private JwtService jwtService;
 
@@ -75,4 +94,127 @@ public class JwtServiceTest {
         // Assert
         assertFalse(isValid);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testVerify_ShouldReturnClaimsOfValidToken() {
+        // Arrange
+        String token = jwtService.generateToken(userDetails);
+
+        // Act
+        VerifiedToken verified = jwtService.verify(token);
+
+        // Assert
+        assertEquals(username, verified.getSubject());
+        assertEquals("ROLE_USER", verified.getRole());
+        assertNotNull(verified.getIssuedAt());
+        assertTrue(verified.getExpiresAt().isAfter(verified.getIssuedAt()));
+    }
+
+    @Test
+    void testVerify_ShouldReuseCachedResultForSameToken() {
+        // Arrange
+        String token = jwtService.generateToken(userDetails);
+
+        // Act
+        VerifiedToken first = jwtService.verify(token);
+        VerifiedToken second = jwtService.verify(token);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, meterRegistry.get("auth.jwt.verify").tag("result", "valid").timer().count());
+        assertEquals(1, meterRegistry.get("auth.jwt.verify").tag("result", "cached").timer().count());
+    }
+
+    @Test
+    void testVerify_ShouldRejectTamperedToken() {
+        // Arrange
+        String token = jwtService.generateToken(userDetails);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    }
+
+    @Test
+    void testVerify_ShouldRejectExpiredToken() {
+        // Arrange
+        long issuedAt = System.currentTimeMillis() - 2 * JwtService.TOKEN_VALIDITY;
+        String token = jwtService.generateToken(userDetails, issuedAt);
+
+        // Act & Assert
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void testGenerateToken_ShouldSignWithActiveKeyAndKid() {
+        // Act
+        String token = jwtService.generateToken(userDetails);
+
+        // Assert
+        JwsHeader<?> header = Jwts.parserBuilder()
+            .setSigningKey(keyRing.current().getPublicKey())
+            .build()
+            .parseClaimsJws(token)
+            .getHeader();
+        assertEquals("RS256", header.getAlgorithm());
+        assertEquals(keyRing.current().getKid(), header.getKeyId());
+    }
+
+    @Test
+    void testVerify_ShouldAcceptTokenSignedWithRetiredKey() {
+        // Arrange
+        SigningKeyRing ring = new SigningKeyRing(2048);
+        JwtService service = new JwtService(new SimpleMeterRegistry(), ring);
+        String token = service.generateToken(userDetails);
+
+        // Act
+        ring.rotate();
+
+        // Assert
+        assertEquals(username, service.verify(token).getSubject());
+    }
+
+    @Test
+    void testVerify_ShouldRejectUnknownKid() {
+        // Arrange
+        SigningKeyRing other = new SigningKeyRing(2048);
+        String token = new JwtService(new SimpleMeterRegistry(), other).generateToken(userDetails);
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void testVerify_ShouldRejectHs256TokenWithoutKid() {
+        // Arrange: formato anterior al anillo RSA, firmado con un secreto compartido
+        long now = System.currentTimeMillis();
+        String legacy = Jwts.builder()
+            .setSubject(username)
+            .claim("role", "ROLE_ADMIN")
+            .setIssuedAt(new Date(now))
+            .setExpiration(new Date(now + JwtService.TOKEN_VALIDITY))
+            .signWith(Keys.hmacShaKeyFor("TuClaveSuperSecretaConAlMenos32Caracteres!!!".getBytes()),
+                SignatureAlgorithm.HS256)
+            .compact();
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtService.verify(legacy));
+    }
+
+    @Test
+    void testVerify_ShouldRejectHs256TokenWithKid() {
+        // Arrange: HS256 firmado con la clave pública RSA como secreto (confusión de algoritmo)
+        long now = System.currentTimeMillis();
+        String forged = Jwts.builder()
+            .setHeaderParam(JwsHeader.KEY_ID, keyRing.current().getKid())
+            .setSubject(username)
+            .setIssuedAt(new Date(now))
+            .setExpiration(new Date(now + JwtService.TOKEN_VALIDITY))
+            .signWith(Keys.hmacShaKeyFor(keyRing.current().getPublicKey().getEncoded()),
+                SignatureAlgorithm.HS256)
+            .compact();
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtService.verify(forged));
+    }
+}
@@ -0,0 +1,115 @@
+package com.sanctuary.auth.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginThrottleTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final LoginThrottle.Buckets byIp = new LoginThrottle.Buckets(3, 1_000, 100);
+    private final LoginThrottle.Buckets byUser = new LoginThrottle.Buckets(2, 60_000, 100);
+    private final LoginThrottle throttle = new LoginThrottle(true, byIp, byUser, now::get);
+
+    @Test
+    void testAcquireAccount_ShouldRejectUserAfterBurstUntilRefill() {
+        // Arrange
+        throttle.acquireAccount("testuser");
+        throttle.acquireAccount("testuser");
+
+        // Act
+        LoginThrottledException ex = assertThrows(LoginThrottledException.class,
+            () -> throttle.acquireAccount("TestUser"));
+
+        // Assert
+        assertEquals(60, ex.getRetryAfterSeconds());
+        now.addAndGet(60_000);
+        assertDoesNotThrow(() -> throttle.acquireAccount("testuser"));
+    }
+
+    @Test
+    void testAcquireLogin_ShouldRejectIpWithoutSpendingUserAttempts() {
+        // Arrange
+        throttle.acquireLogin("10.0.0.1");
+        throttle.acquireLogin("10.0.0.1");
+        throttle.acquireLogin("10.0.0.1");
+
+        // Act & Assert
+        assertThrows(LoginThrottledException.class, () -> throttle.acquireLogin("10.0.0.1"));
+        assertThrows(LoginThrottledException.class, () -> throttle.acquireRegistration("10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.acquireLogin("10.0.0.2"));
+        assertEquals(0, byUser.size());
+    }
+
+    @Test
+    void testLoginSucceeded_ShouldRestoreUserAttempts() {
+        // Arrange
+        throttle.acquireAccount("testuser");
+        throttle.acquireAccount("testuser");
+
+        // Act
+        throttle.loginSucceeded("testuser");
+
+        // Assert
+        assertDoesNotThrow(() -> throttle.acquireAccount("testuser"));
+    }
+
+    @Test
+    void testSweep_ShouldDropOnlyIdleBuckets() {
+        // Arrange
+        throttle.acquireLogin("10.0.0.1");
+        now.addAndGet(500);
+        throttle.acquireLogin("10.0.0.2");
+
+        // Act
+        now.addAndGet(600);
+        byIp.sweep(now.get());
+
+        // Assert
+        assertEquals(1, byIp.size());
+    }
+
+    @Test
+    void testTryAcquire_WhenKeyLimitReached_ShouldLetNewKeysThroughUntracked() {
+        // Arrange
+        LoginThrottle.Buckets small = new LoginThrottle.Buckets(1, 1_000, 1);
+        small.tryAcquire("10.0.0.1", now.get());
+
+        // Act & Assert
+        assertEquals(0, small.tryAcquire("10.0.0.2", now.get()));
+        assertEquals(0, small.tryAcquire("10.0.0.2", now.get()));
+        assertEquals(1, small.size());
+    }
+
+    @Test
+    void testDisabled_ShouldNeverReject() {
+        // Arrange
+        LoginThrottle disabled = new LoginThrottle(false, byIp, byUser, now::get);
+
+        // Act & Assert
+        for (int i = 0; i < 10; i++) {
+            assertDoesNotThrow(() -> disabled.acquireLogin("10.0.0.1"));
+            assertDoesNotThrow(() -> disabled.acquireAccount("testuser"));
+        }
+    }
+
+    @Test
+    void testBindTo_ShouldPublishRejections() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        throttle.bindTo(registry);
+        throttle.acquireLogin("10.0.0.1");
+        throttle.acquireAccount("testuser");
+        throttle.acquireAccount("testuser");
+
+        // Act
+        assertThrows(LoginThrottledException.class, () -> throttle.acquireAccount("testuser"));
+
+        // Assert
+        assertEquals(1.0, registry.get("auth.login.throttled").tag("scope", "user").functionCounter().count());
+        assertEquals(1.0, registry.get("auth.login.throttle.keys").tag("scope", "ip").gauge().value());
+    }
+}
@@ -0,0 +1,82 @@
+package com.sanctuary.auth.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.sanctuary.auth.security.PasswordHashingExecutor.Operation.MATCHES;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHashingExecutorTest {
+
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new PasswordHashingExecutor(1, 1, 3, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void testExecute_ShouldReturnResultAndRecordTimings() {
+        // Act
+        String result = executor.execute(MATCHES, () -> "hash");
+
+        // Assert
+        assertEquals("hash", result);
+        assertEquals(1, executor.getCompletedCount());
+        assertTrue(executor.getTotalHashNanos() >= 0);
+    }
+
+    @Test
+    void testExecute_ShouldPropagateRuntimeExceptions() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> executor.execute(MATCHES, () -> {
+            throw new IllegalArgumentException("fallo");
+        }));
+    }
+
+    @Test
+    void testExecute_WhenQueueIsFull_ShouldRejectImmediately() throws Exception {
+        // Arrange: ocupa el único hilo y la única posición de la cola
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> busy = CompletableFuture.supplyAsync(() -> executor.execute(MATCHES, () -> {
+            running.countDown();
+            await(release);
+            return "a";
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.execute(MATCHES, () -> "b"));
+        while (executor.getQueueSize() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // Act & Assert
+        HashingCapacityExceededException ex = assertThrows(HashingCapacityExceededException.class,
+                () -> executor.execute(MATCHES, () -> "c"));
+        assertEquals(3, ex.getRetryAfterSeconds());
+        assertEquals(1, executor.getRejectedCount());
+
+        release.countDown();
+        assertEquals("a", busy.get(5, TimeUnit.SECONDS));
+        assertEquals("b", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
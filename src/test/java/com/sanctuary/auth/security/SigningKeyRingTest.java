@@ -0,0 +1,60 @@
+package com.sanctuary.auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SigningKeyRingTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final SigningKeyRing keyRing = new SigningKeyRing(2048, now::get);
+
+    @Test
+    void testPublishedKeys_ShouldIncludeNextKeyBeforeItSigns() {
+        // Arrange
+        String next = keyRing.publishedKeys().get(1).getKid();
+
+        // Act
+        keyRing.rotate();
+
+        // Assert
+        assertEquals(next, keyRing.current().getKid());
+    }
+
+    @Test
+    void testRotate_ShouldKeepRetiredKeyWhileItsTokensMayBeValid() {
+        // Arrange
+        String first = keyRing.current().getKid();
+
+        // Act
+        keyRing.rotate();
+
+        // Assert
+        assertNotEquals(first, keyRing.current().getKid());
+        assertNotNull(keyRing.verificationKey(first));
+        assertEquals(3, keyRing.publishedKeys().size());
+
+        now.addAndGet(JwtService.TOKEN_VALIDITY + JwtService.CLOCK_SKEW + 1);
+        keyRing.rotate();
+        assertNull(keyRing.verificationKey(first));
+        assertEquals(3, keyRing.publishedKeys().size());
+    }
+
+    @Test
+    void testToJwk_ShouldExposeOnlyPublicParameters() {
+        // Act
+        Map<String, Object> jwk = keyRing.current().toJwk();
+
+        // Assert
+        assertEquals("RSA", jwk.get("kty"));
+        assertEquals("RS256", jwk.get("alg"));
+        assertEquals(keyRing.current().getKid(), jwk.get("kid"));
+        assertEquals("AQAB", jwk.get("e"));
+        assertFalse(jwk.containsKey("d"));
+        assertEquals(List.of("kty", "kid", "use", "alg", "n", "e"), List.copyOf(jwk.keySet()));
+    }
+}
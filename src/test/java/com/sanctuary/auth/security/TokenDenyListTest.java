@@ -0,0 +1,65 @@
+package com.sanctuary.auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenDenyListTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final TokenDenyList denyList = new TokenDenyList(now::get);
+
+    @Test
+    void testIsRevoked_WhenEmptyOrWithoutId_ShouldReturnFalse() {
+        assertFalse(denyList.isRevoked("jti-1"));
+        assertFalse(denyList.isRevoked(null));
+    }
+
+    @Test
+    void testRevoke_ShouldDenyTokenUntilExpirationPlusSkew() {
+        // Arrange
+        Instant expiresAt = Instant.ofEpochMilli(now.get() + 60_000);
+
+        // Act
+        denyList.revoke("jti-1", expiresAt);
+
+        // Assert
+        assertTrue(denyList.isRevoked("jti-1"));
+        assertFalse(denyList.isRevoked("jti-2"));
+
+        now.set(expiresAt.toEpochMilli() + JwtService.CLOCK_SKEW + 1);
+        denyList.purge(now.get());
+        assertFalse(denyList.isRevoked("jti-1"));
+        assertEquals(0, denyList.size());
+    }
+
+    @Test
+    void testRevoke_WithAlreadyExpiredToken_ShouldNotStoreIt() {
+        // Act
+        denyList.revoke("jti-1", Instant.ofEpochMilli(now.get() - JwtService.CLOCK_SKEW - 1));
+
+        // Assert
+        assertEquals(0, denyList.size());
+    }
+
+    @Test
+    void testRevoke_ShouldPurgeExpiredEntriesPeriodicallyButKeepLiveOnes() {
+        // Arrange
+        denyList.revoke("live", Instant.ofEpochMilli(now.get() + JwtService.TOKEN_VALIDITY));
+        for (int i = 0; i < TokenDenyList.PURGE_INTERVAL - 2; i++) {
+            denyList.revoke("short-" + i, Instant.ofEpochMilli(now.get() + 1));
+        }
+        now.addAndGet(JwtService.CLOCK_SKEW + 2);
+
+        // Act: la revocación que alcanza el intervalo dispara el barrido
+        denyList.revoke("last", Instant.ofEpochMilli(now.get() + 60_000));
+
+        // Assert
+        assertEquals(2, denyList.size());
+        assertTrue(denyList.isRevoked("live"));
+        assertTrue(denyList.isRevoked("last"));
+    }
+}
@@ -1,19 +1,22 @@
 package com.sanctuary.auth.security;
 
+import com.sanctuary.auth.cache.UserDirectoryVersion;
 import com.sanctuary.auth.model.AppUser;
+import com.sanctuary.auth.model.Role;
 import com.sanctuary.auth.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,7 +25,10 @@ public class UserDetailsServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private UserDirectoryVersion directoryVersion;
+
+    private UserDetailsCache userDetailsCache;
     private UserDetailsServiceImpl userDetailsService;
 
     private AppUser testUser;
@@ -30,9 +36,14 @@ public class UserDetailsServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        userDetailsCache = new UserDetailsCache(100, Duration.ofMinutes(5));
+        userDetailsService = new UserDetailsServiceImpl(userRepository, userDetailsCache, directoryVersion);
+
         testUser = new AppUser();
+        testUser.setId(1L);
         testUser.setUsername(username);
         testUser.setPassword("password");
+        testUser.setRole(Role.USER);
     }
 
     @Test
@@ -46,6 +57,8 @@ public class UserDetailsServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(username, result.getUsername());
+        assertEquals("password", result.getPassword());
+        assertEquals("ROLE_USER", result.getAuthorities().iterator().next().getAuthority());
         verify(userRepository).findByUsername(username);
     }
 
@@ -62,4 +75,126 @@ public class UserDetailsServiceImplTest {
         assertEquals("Usuario no encontrado", exception.getMessage());
         verify(userRepository).findByUsername(username);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLoadUserByUsername_SecondCall_ShouldBeServedFromCache() {
+        // Arrange
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(testUser));
+
+        // Act
+        UserDetails first = userDetailsService.loadUserByUsername(username);
+        UserDetails second = userDetailsService.loadUserByUsername(username);
+
+        // Assert
+        assertSame(first, second);
+        assertNotSame(testUser, first);
+        verify(userRepository, times(1)).findByUsername(username);
+        assertEquals(1, userDetailsCache.hitCount());
+    }
+
+    @Test
+    void testLoadUserByUsername_AfterInvalidate_ShouldReloadFromRepository() {
+        // Arrange
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(testUser));
+        userDetailsService.loadUserByUsername(username);
+
+        // Act
+        userDetailsCache.invalidate(username);
+        userDetailsService.loadUserByUsername(username);
+
+        // Assert
+        verify(userRepository, times(2)).findByUsername(username);
+    }
+
+    @Test
+    void testUpdatePassword_ShouldPersistNewHashAndEvictCachedUser() {
+        // Arrange
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(testUser));
+        userDetailsService.loadUserByUsername(username);
+
+        // Act
+        UserDetails updated = userDetailsService.updatePassword(
+                CachedUserDetails.from(testUser), "{bcrypt}$2a$12$newhash");
+
+        // Assert
+        assertEquals("{bcrypt}$2a$12$newhash", updated.getPassword());
+        assertEquals("{bcrypt}$2a$12$newhash", testUser.getPassword());
+        verify(userRepository).save(testUser);
+        verify(directoryVersion).changed();
+        assertNull(userDetailsCache.get(username));
+    }
+
+    @Test
+    void testLoadUserByUsername_WithEmail_ShouldFindByNormalizedEmail() {
+        // Arrange
+        testUser.setEmail("test@example.com");
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+
+        // Act
+        UserDetails result = userDetailsService.loadUserByUsername("  Test@Example.COM ");
+
+        // Assert
+        assertEquals(username, result.getUsername());
+        verify(userRepository, never()).findByUsername(anyString());
+        assertNotNull(userDetailsCache.get(username));
+    }
+
+    @Test
+    void testLoadUserByUsername_WithEmailTwice_ShouldHitCacheTheSecondTime() {
+        // Arrange
+        testUser.setEmail("test@example.com");
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+
+        // Act
+        userDetailsService.loadUserByUsername("test@example.com");
+        UserDetails second = userDetailsService.loadUserByUsername("TEST@example.com");
+
+        // Assert
+        assertEquals(username, second.getUsername());
+        verify(userRepository, times(1)).findByEmail("test@example.com");
+    }
+
+    @Test
+    void testLoadUserByUsername_WithEmailAfterInvalidation_ShouldQueryAgain() {
+        // Arrange
+        testUser.setEmail("test@example.com");
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        userDetailsService.loadUserByUsername("test@example.com");
+
+        // Act
+        userDetailsCache.invalidate(username);
+        userDetailsService.loadUserByUsername("test@example.com");
+
+        // Assert
+        verify(userRepository, times(2)).findByEmail("test@example.com");
+    }
+
+    @Test
+    void testGetByEmail_WhenCachedUserChangedEmail_ShouldIgnoreStaleAlias() {
+        // Arrange
+        testUser.setEmail("old@example.com");
+        userDetailsCache.put(CachedUserDetails.from(testUser));
+        testUser.setEmail("new@example.com");
+
+        // Act: el usuario vuelve a la caché con el correo nuevo sin invalidar el alias anterior
+        userDetailsCache.put(CachedUserDetails.from(testUser));
+
+        // Assert
+        assertNull(userDetailsCache.getByEmail("old@example.com"));
+        assertNotNull(userDetailsCache.getByEmail("new@example.com"));
+    }
+
+    @Test
+    void testLoadUserByUsername_WithLegacyUsernameContainingAt_ShouldFallBackToUsername() {
+        // Arrange
+        testUser.setUsername("ana@sede");
+        when(userRepository.findByEmail("ana@sede")).thenReturn(Optional.empty());
+        when(userRepository.findByUsername("ana@sede")).thenReturn(Optional.of(testUser));
+
+        // Act
+        UserDetails result = userDetailsService.loadUserByUsername("ana@sede");
+
+        // Assert
+        assertEquals("ana@sede", result.getUsername());
+    }
+}
@@ -0,0 +1,80 @@
+package com.sanctuary.auth.security;
+
+import com.sanctuary.auth.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserOwnershipAuthorizationTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserOwnershipAuthorization authorization;
+
+    @BeforeEach
+    void setUp() {
+        authorization = new UserOwnershipAuthorization(userRepository);
+    }
+
+    private static Authentication user(String username, String role) {
+        return UsernamePasswordAuthenticationToken.authenticated(username, null,
+            List.of(new SimpleGrantedAuthority(role)));
+    }
+
+    private static RequestAuthorizationContext patch(String id) {
+        return new RequestAuthorizationContext(new MockHttpServletRequest("PATCH", "/api/auth/" + id),
+            Map.of("id", id));
+    }
+
+    @Test
+    void testCheck_WhenUserModifiesOwnAccount_ShouldGrant() {
+        // Arrange
+        when(userRepository.findUsernameById(1L)).thenReturn(Optional.of("testuser"));
+
+        // Act & Assert
+        assertTrue(authorization.check(() -> user("testuser", "ROLE_USER"), patch("1")).isGranted());
+    }
+
+    @Test
+    void testCheck_WhenUserModifiesAnotherAccount_ShouldDeny() {
+        // Arrange
+        when(userRepository.findUsernameById(1L)).thenReturn(Optional.of("testuser"));
+
+        // Act & Assert
+        assertFalse(authorization.check(() -> user("otheruser", "ROLE_USER"), patch("1")).isGranted());
+    }
+
+    @Test
+    void testCheck_WhenAdmin_ShouldGrantWithoutLookup() {
+        // Act & Assert
+        assertTrue(authorization.check(() -> user("admin", "ROLE_ADMIN"), patch("1")).isGranted());
+        verify(userRepository, never()).findUsernameById(anyLong());
+    }
+
+    @Test
+    void testCheck_WhenIdIsUnknownOrInvalid_ShouldDeny() {
+        // Arrange
+        when(userRepository.findUsernameById(999L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertFalse(authorization.check(() -> user("testuser", "ROLE_USER"), patch("999")).isGranted());
+        assertFalse(authorization.check(() -> user("testuser", "ROLE_USER"), patch("abc")).isGranted());
+    }
+}
@@ -1,23 +1,42 @@
 package com.sanctuary.auth.services;
 
+import com.sanctuary.auth.cache.UserDirectoryVersion;
 import com.sanctuary.auth.dto.AuthResponse;
 import com.sanctuary.auth.dto.LoginRequest;
 import com.sanctuary.auth.dto.RegisterRequest;
+import com.sanctuary.auth.dto.RevokeRequest;
+import com.sanctuary.auth.dto.UserPageResponse;
+import com.sanctuary.auth.dto.UserPatchRequest;
 import com.sanctuary.auth.dto.UserShowRequest;
 import com.sanctuary.auth.model.AppUser;
 import com.sanctuary.auth.model.Role;
 import com.sanctuary.auth.repository.UserRepository;
 import com.sanctuary.auth.security.JwtService;
+import com.sanctuary.auth.security.LoginStageMetrics;
+import com.sanctuary.auth.security.SubjectStatusHook;
+import com.sanctuary.auth.security.TokenDenyList;
+import com.sanctuary.auth.security.UserDetailsCache;
+import com.sanctuary.auth.security.VerifiedToken;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -41,6 +60,33 @@ public class AuthUserServiceTest {
     @Mock
     private AuthenticationManager authenticationManager;
 
+    @Mock
+    private SubjectStatusHook subjectStatusHook;
+
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @Mock
+    private LoginStageMetrics loginStageMetrics;
+
+    @Mock
+    private TokenDenyList tokenDenyList;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private UserExistenceIndex existenceIndex;
+
+    @Mock
+    private UserDirectoryVersion directoryVersion;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private AuthUserService authUserService;
 
@@ -67,46 +113,105 @@ public class AuthUserServiceTest {
         testUser.setIdentificationNumber("12345");
         testUser.setPassword("encodedPassword");
         testUser.setRole(Role.USER);
+
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(inv -> inv.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+    }
+
+    private static UserShowRequest view(AppUser user) {
+        return new UserShowRequest(user.getId(), user.getUsername(), user.getEmail(),
+            user.getIdentificationNumber(), user.getRole(), user.getVersion());
     }
 
     @Test
     void testRegisterUser_WhenUserDoesNotExist_ShouldRegisterSuccessfully() {
         // Arrange
-        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
-        when(userRepository.save(any(AppUser.class))).thenReturn(testUser);
+        when(userRepository.saveAndFlush(any(AppUser.class))).thenReturn(testUser);
 
         // Act
         String result = authUserService.registerUser(registerRequest, Role.USER);
 
         // Assert
         assertEquals("Usuario registrado exitosamente.", result);
-        verify(userRepository).findByUsername("testuser");
+        verify(userRepository, never()).findByUsername(anyString());
         verify(passwordEncoder).encode("password");
-        verify(userRepository).save(any(AppUser.class));
+        verify(userRepository).saveAndFlush(any(AppUser.class));
+        verify(existenceIndex).add(registerRequest.getUsername(), registerRequest.getEmail(),
+            registerRequest.getIdentificationNumber());
+    }
+
+    @Test
+    void testRegisterUser_WhenIndexConfirmsDuplicate_ShouldRejectBeforeHashing() {
+        // Arrange
+        when(existenceIndex.findDuplicate(registerRequest.getUsername(), registerRequest.getEmail(),
+            registerRequest.getIdentificationNumber()))
+            .thenReturn(new DuplicateUserException(DuplicateUserException.EMAIL));
+
+        // Act & Assert
+        DuplicateUserException exception = assertThrows(DuplicateUserException.class,
+            () -> authUserService.registerUser(registerRequest, Role.USER));
+
+        assertEquals(DuplicateUserException.EMAIL, exception.getField());
+        verifyNoInteractions(passwordEncoder);
+        verify(userRepository, never()).saveAndFlush(any(AppUser.class));
     }
 
     @Test
     void testRegisterUser_WhenUserExists_ShouldThrowException() {
         // Arrange
-        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(AppUser.class))).thenThrow(new DataIntegrityViolationException(
+            "Duplicate entry 'testuser' for key 'users.uk_users_username'"));
 
         // Act & Assert
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+        DuplicateUserException exception = assertThrows(DuplicateUserException.class, () -> {
             authUserService.registerUser(registerRequest, Role.USER);
         });
 
         assertEquals("El usuario ya existe.", exception.getMessage());
-        verify(userRepository).findByUsername("testuser");
-        verify(userRepository, never()).save(any(AppUser.class));
+        assertEquals(DuplicateUserException.USERNAME, exception.getField());
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    @Test
+    void testRegisterUser_WhenEmailExistsUnderLegacyIndex_ShouldNameEmailField() {
+        // Arrange
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(AppUser.class))).thenThrow(new DataIntegrityViolationException(
+            "Duplicate entry 'test@example.com' for key 'users.UK6dotkott2kjsp8vw4d0m25fb7'"));
+
+        // Act & Assert
+        DuplicateUserException exception = assertThrows(DuplicateUserException.class, () -> {
+            authUserService.registerUser(registerRequest, Role.USER);
+        });
+
+        assertEquals(DuplicateUserException.EMAIL, exception.getField());
+        assertEquals("El correo electrónico ya está registrado.", exception.getMessage());
+    }
+
+    @Test
+    void testRegisterUser_WhenOtherIntegrityViolation_ShouldRethrow() {
+        // Arrange
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(AppUser.class))).thenThrow(new DataIntegrityViolationException(
+            "Column 'role' cannot be null"));
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> {
+            authUserService.registerUser(registerRequest, Role.USER);
+        });
     }
 
     @Test
     void testLogin_WhenCredentialsAreValid_ShouldReturnToken() {
         // Arrange
         String token = "jwt.token.here";
-        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(testUser));
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+            .thenReturn(new UsernamePasswordAuthenticationToken(testUser, null, testUser.getAuthorities()));
         when(jwtService.generateToken(any(AppUser.class))).thenReturn(token);
+        when(jwtService.getAccessTokenTtl()).thenReturn(Duration.ofMinutes(15));
+        when(refreshTokenService.issue("testuser")).thenReturn("refresh-token");
 
         // Act
         AuthResponse response = authUserService.login(loginRequest);
@@ -114,16 +219,41 @@ public class AuthUserServiceTest {
         // Assert
         assertNotNull(response);
         assertEquals(token, response.getToken());
+        assertEquals("refresh-token", response.getRefreshToken());
+        assertEquals(900L, response.getExpiresIn());
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userRepository).findByUsername("testuser");
+        verify(userRepository, never()).findByUsername(anyString());
         verify(jwtService).generateToken(testUser);
+        verify(loginStageMetrics).record(eq(LoginStageMetrics.Stage.SIGNING), anyLong());
+    }
+
+    @Test
+    void testLogin_WithEmailOnly_ShouldAuthenticateWithEmailAsIdentifier() {
+        // Arrange
+        LoginRequest byEmail = new LoginRequest();
+        byEmail.setEmail("test@example.com");
+        byEmail.setPassword("password");
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+            .thenReturn(new UsernamePasswordAuthenticationToken(testUser, null, testUser.getAuthorities()));
+        when(jwtService.generateToken(any(AppUser.class))).thenReturn("jwt.token.here");
+        when(jwtService.getAccessTokenTtl()).thenReturn(Duration.ofMinutes(15));
+
+        // Act
+        authUserService.login(byEmail);
+
+        // Assert
+        ArgumentCaptor<UsernamePasswordAuthenticationToken> attempt =
+            ArgumentCaptor.forClass(UsernamePasswordAuthenticationToken.class);
+        verify(authenticationManager).authenticate(attempt.capture());
+        assertEquals("test@example.com", attempt.getValue().getPrincipal());
+        // La sesión se abre a nombre del username, no del correo
+        verify(refreshTokenService).issue("testuser");
     }
 
     @Test
-    void testLogin_WhenUserNotFound_ShouldThrowException() {
+    void testLogin_WhenAuthenticationHasNoPrincipal_ShouldThrowException() {
         // Arrange
         when(authenticationManager.authenticate(any())).thenReturn(null);
-        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
 
         // Act & Assert
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -136,14 +266,10 @@ public class AuthUserServiceTest {
     @Test
     void testGetAllUsers_ShouldReturnListOfUsers() {
         // Arrange
-        AppUser user1 = testUser;
-        AppUser user2 = new AppUser();
-        user2.setId(2L);
-        user2.setUsername("user2");
-        user2.setEmail("user2@example.com");
-        user2.setRole(Role.ADMIN);
+        UserShowRequest user1 = new UserShowRequest(1L, "testuser", "test@example.com", "12345", Role.USER);
+        UserShowRequest user2 = new UserShowRequest(2L, "user2", "user2@example.com", null, Role.ADMIN);
 
-        when(userRepository.findAll()).thenReturn(Arrays.asList(user1, user2));
+        when(userRepository.findAllViews()).thenReturn(Arrays.asList(user1, user2));
 
         // Act
         List<UserShowRequest> users = authUserService.getAllUsers();
@@ -152,13 +278,65 @@ public class AuthUserServiceTest {
         assertEquals(2, users.size());
         assertEquals("testuser", users.get(0).getUsername());
         assertEquals("user2", users.get(1).getUsername());
-        verify(userRepository).findAll();
+        verify(userRepository).findAllViews();
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetUsersPage_WhenMoreRowsExist_ShouldReturnNextCursor() {
+        // Arrange
+        UserShowRequest user1 = new UserShowRequest(1L, "testuser", "test@example.com", "12345", Role.USER);
+        UserShowRequest user2 = new UserShowRequest(2L, "user2", "user2@example.com", "2", Role.USER);
+        UserShowRequest user3 = new UserShowRequest(3L, "user3", "user3@example.com", "3", Role.USER);
+        when(userRepository.findViewsAfter(0L, Limit.of(3)))
+            .thenReturn(Arrays.asList(user1, user2, user3));
+
+        // Act
+        UserPageResponse page = authUserService.getUsersPage(null, 2, null);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        assertEquals("user2", page.getItems().get(1).getUsername());
+        assertNotNull(page.getNextCursor());
+
+        // La siguiente página continúa después del último id devuelto
+        when(userRepository.findViewsAfter(2L, Limit.of(3))).thenReturn(List.of(user3));
+        UserPageResponse next = authUserService.getUsersPage(page.getNextCursor(), 2, null);
+        assertEquals(1, next.getItems().size());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void testGetUsersPage_WithRoleAndOversizedPage_ShouldFilterAndClampSize() {
+        // Arrange
+        when(userRepository.findViewsByRoleAfter(
+                Role.ADMIN, 0L, Limit.of(AuthUserService.MAX_PAGE_SIZE + 1)))
+            .thenReturn(List.of());
+
+        // Act
+        UserPageResponse page = authUserService.getUsersPage("", 10_000, Role.ADMIN);
+
+        // Assert
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetUsersPage_WithInvalidCursor_ShouldThrowException() {
+        // Act & Assert
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            authUserService.getUsersPage("no-es-un-cursor", 10, null);
+        });
+
+        assertEquals("Cursor inválido.", exception.getMessage());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void testGetUserById_WhenUserExists_ShouldReturnUser() {
         // Arrange
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(
+            new UserShowRequest(1L, "testuser", "test@example.com", "12345", Role.USER)));
 
         // Act
         Optional<UserShowRequest> user = authUserService.getUserById(1L);
@@ -167,20 +345,56 @@ public class AuthUserServiceTest {
         assertTrue(user.isPresent());
         assertEquals("testuser", user.get().getUsername());
         assertEquals("test@example.com", user.get().getEmail());
-        verify(userRepository).findById(1L);
+        verify(userRepository).findViewById(1L);
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void testLookupUser_ByEmail_ShouldQueryNormalizedEmail() {
+        // Arrange
+        when(userRepository.findViewByEmail("test@example.com")).thenReturn(Optional.of(
+            new UserShowRequest(1L, "testuser", "test@example.com", "12345", Role.USER)));
+
+        // Act
+        Optional<UserShowRequest> user = authUserService.lookupUser(" Test@Example.com", null);
+
+        // Assert
+        assertTrue(user.isPresent());
+        assertEquals("testuser", user.get().getUsername());
+        verify(userRepository, never()).findAllViews();
+    }
+
+    @Test
+    void testLookupUser_ByIdentificationNumber_ShouldQueryIndex() {
+        // Arrange
+        when(userRepository.findViewByIdentificationNumber("12345")).thenReturn(Optional.empty());
+
+        // Act
+        Optional<UserShowRequest> user = authUserService.lookupUser(null, "12345");
+
+        // Assert
+        assertTrue(user.isEmpty());
+        verify(userRepository).findViewByIdentificationNumber("12345");
+    }
+
+    @Test
+    void testLookupUser_WithNoneOrBothCriteria_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> authUserService.lookupUser(null, " "));
+        assertThrows(IllegalArgumentException.class, () -> authUserService.lookupUser("a@b.com", "1"));
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void testGetUserById_WhenUserDoesNotExist_ShouldReturnEmpty() {
         // Arrange
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userRepository.findViewById(anyLong())).thenReturn(Optional.empty());
 
         // Act
         Optional<UserShowRequest> user = authUserService.getUserById(999L);
 
         // Assert
         assertFalse(user.isPresent());
-        verify(userRepository).findById(999L);
+        verify(userRepository).findViewById(999L);
     }
 
     @Test
@@ -192,6 +406,7 @@ public class AuthUserServiceTest {
         updateRequest.setPassword("newpassword");
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(existenceIndex.mightContain(UserExistenceIndex.Field.USERNAME, "updateduser")).thenReturn(true);
         when(userRepository.findByUsername("updateduser")).thenReturn(Optional.empty());
         when(passwordEncoder.encode("newpassword")).thenReturn("newEncodedPassword");
         when(userRepository.save(any(AppUser.class))).thenReturn(testUser);
@@ -208,6 +423,30 @@ public class AuthUserServiceTest {
         verify(userRepository).findByUsername("updateduser");
         verify(passwordEncoder).encode("newpassword");
         verify(userRepository).save(testUser);
+        verify(userDetailsCache).invalidate("testuser");
+        verify(userDetailsCache).invalidate("updateduser");
+        verify(userDetailsCache).invalidateEmail("test@example.com");
+        verify(subjectStatusHook).revoke("testuser");
+        verify(existenceIndex).add("updateduser", "updated@example.com", testUser.getIdentificationNumber());
+        verify(existenceIndex).removed();
+    }
+
+    @Test
+    void testUpdateUser_WhenIndexRulesOutUsername_ShouldSkipLookup() {
+        // Arrange
+        RegisterRequest updateRequest = new RegisterRequest();
+        updateRequest.setUsername("freshname");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(existenceIndex.mightContain(UserExistenceIndex.Field.USERNAME, "freshname")).thenReturn(false);
+
+        // Act
+        authUserService.updateUser(1L, updateRequest);
+
+        // Assert
+        assertEquals("freshname", testUser.getUsername());
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(userRepository).save(testUser);
     }
 
     @Test
@@ -236,6 +475,7 @@ public class AuthUserServiceTest {
         updateRequest.setUsername("updateduser");
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(existenceIndex.mightContain(UserExistenceIndex.Field.USERNAME, "updateduser")).thenReturn(true);
         when(userRepository.findByUsername("updateduser")).thenReturn(Optional.of(existingUser));
 
         // Act & Assert
@@ -249,10 +489,164 @@ public class AuthUserServiceTest {
         verify(userRepository, never()).save(any(AppUser.class));
     }
 
+    @Test
+    void testUpdateUser_WhenEmailTaken_ShouldThrowDuplicate() {
+        // Arrange
+        RegisterRequest updateRequest = new RegisterRequest();
+        updateRequest.setEmail("taken@example.com");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.save(testUser)).thenThrow(new DataIntegrityViolationException(
+            "Duplicate entry 'taken@example.com' for key '" + AppUser.UK_EMAIL + "'"));
+
+        // Act & Assert
+        DuplicateUserException exception = assertThrows(DuplicateUserException.class,
+            () -> authUserService.updateUser(1L, updateRequest));
+        assertEquals(DuplicateUserException.EMAIL, exception.getField());
+        verify(userDetailsCache, never()).invalidate(anyString());
+        verify(directoryVersion, never()).changed();
+    }
+
+    @Test
+    void testUpdateUser_WhenConcurrentWriteWins_ShouldThrowConflict() {
+        // Arrange
+        RegisterRequest updateRequest = new RegisterRequest();
+        updateRequest.setEmail("updated@example.com");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.save(testUser)).thenThrow(new ObjectOptimisticLockingFailureException(AppUser.class, 1L));
+
+        // Act & Assert
+        assertThrows(StaleUserVersionException.class, () -> authUserService.updateUser(1L, updateRequest));
+        verify(userDetailsCache, never()).invalidate(anyString());
+        verify(directoryVersion, never()).changed();
+    }
+
+    @Test
+    void testPatchUser_WhenNoPasswordSent_ShouldSkipHashingAndKeepSessions() {
+        // Arrange
+        testUser.setVersion(3L);
+        UserPatchRequest patch = new UserPatchRequest();
+        patch.setEmail("new@example.com");
+
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(view(testUser)));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.saveAndFlush(testUser)).thenReturn(testUser);
+
+        // Act
+        UserShowRequest result = authUserService.patchUser(1L, patch, 3L);
+
+        // Assert
+        assertEquals("new@example.com", result.getEmail());
+        assertEquals("testuser", result.getUsername());
+        assertEquals("encodedPassword", testUser.getPassword());
+        verifyNoInteractions(passwordEncoder);
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(refreshTokenService, never()).revokeAll(anyString());
+        verify(subjectStatusHook, never()).revoke(anyString());
+        verify(userDetailsCache).invalidate("testuser");
+        verify(userDetailsCache).invalidateEmail("test@example.com");
+        verify(existenceIndex).removed();
+    }
+
+    @Test
+    void testPatchUser_WhenPasswordSent_ShouldHashOnceBeforeTransactionAndRevokeSessions() {
+        // Arrange
+        testUser.setVersion(0L);
+        UserPatchRequest patch = new UserPatchRequest();
+        patch.setPassword("newpassword");
+
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(view(testUser)));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.encode("newpassword")).thenReturn("newEncodedPassword");
+        when(userRepository.saveAndFlush(testUser)).thenReturn(testUser);
+
+        // Act
+        authUserService.patchUser(1L, patch, 0L);
+
+        // Assert
+        assertEquals("newEncodedPassword", testUser.getPassword());
+        InOrder order = inOrder(passwordEncoder, transactionTemplate);
+        order.verify(passwordEncoder).encode("newpassword");
+        order.verify(transactionTemplate).execute(any());
+        verify(passwordEncoder, never()).matches(anyString(), anyString());
+        verify(refreshTokenService).revokeAll("testuser");
+        verify(existenceIndex, never()).removed();
+    }
+
+    @Test
+    void testPatchUser_WhenVersionChangesWhileHashing_ShouldThrowConflictWithoutWriting() {
+        // Arrange
+        UserPatchRequest patch = new UserPatchRequest();
+        patch.setPassword("newpassword");
+        testUser.setVersion(3L);
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(view(testUser)));
+        when(passwordEncoder.encode("newpassword")).thenAnswer(inv -> {
+            testUser.setVersion(4L);
+            return "newEncodedPassword";
+        });
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // Act & Assert
+        assertThrows(StaleUserVersionException.class, () -> authUserService.patchUser(1L, patch, 3L));
+        verify(userRepository, never()).saveAndFlush(any(AppUser.class));
+        verify(refreshTokenService, never()).revokeAll(anyString());
+    }
+
+    @Test
+    void testPatchUser_WhenVersionIsStale_ShouldThrowConflictWithoutWriting() {
+        // Arrange
+        testUser.setVersion(4L);
+        UserPatchRequest patch = new UserPatchRequest();
+        patch.setUsername("other");
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(view(testUser)));
+
+        // Act & Assert
+        assertThrows(StaleUserVersionException.class, () -> authUserService.patchUser(1L, patch, 3L));
+        assertEquals("testuser", testUser.getUsername());
+        verify(transactionTemplate, never()).execute(any());
+        verify(userDetailsCache, never()).invalidate(anyString());
+        verify(directoryVersion, never()).changed();
+    }
+
+    @Test
+    void testPatchUser_WhenConcurrentWriteWins_ShouldThrowConflict() {
+        // Arrange
+        testUser.setVersion(3L);
+        UserPatchRequest patch = new UserPatchRequest();
+        patch.setUsername("other");
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(view(testUser)));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.saveAndFlush(testUser))
+            .thenThrow(new ObjectOptimisticLockingFailureException(AppUser.class, 1L));
+
+        // Act & Assert
+        assertThrows(StaleUserVersionException.class, () -> authUserService.patchUser(1L, patch, 3L));
+        verify(subjectStatusHook, never()).revoke(anyString());
+        verify(existenceIndex, never()).add(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testPatchUser_WhenUsernameTaken_ShouldThrowDuplicate() {
+        // Arrange
+        testUser.setVersion(3L);
+        UserPatchRequest patch = new UserPatchRequest();
+        patch.setUsername("taken");
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(view(testUser)));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.saveAndFlush(testUser)).thenThrow(new DataIntegrityViolationException(
+            "Duplicate entry 'taken' for key '" + AppUser.UK_USERNAME + "'"));
+
+        // Act & Assert
+        DuplicateUserException exception = assertThrows(DuplicateUserException.class,
+            () -> authUserService.patchUser(1L, patch, 3L));
+        assertEquals(DuplicateUserException.USERNAME, exception.getField());
+    }
+
     @Test
     void testDeleteUser_WhenUserExists_ShouldReturnTrue() {
         // Arrange
-        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findUsernameById(1L)).thenReturn(Optional.of("testuser"));
         doNothing().when(userRepository).deleteById(1L);
 
         // Act
@@ -260,21 +654,103 @@ public class AuthUserServiceTest {
 
         // Assert
         assertTrue(result);
-        verify(userRepository).existsById(1L);
+        verify(userRepository).findUsernameById(1L);
         verify(userRepository).deleteById(1L);
+        verify(userDetailsCache).invalidate("testuser");
+        verify(subjectStatusHook).revoke("testuser");
+        verify(existenceIndex).removed();
+        verify(directoryVersion).changed();
     }
 
     @Test
     void testDeleteUser_WhenUserDoesNotExist_ShouldReturnFalse() {
         // Arrange
-        when(userRepository.existsById(999L)).thenReturn(false);
+        when(userRepository.findUsernameById(999L)).thenReturn(Optional.empty());
 
         // Act
         boolean result = authUserService.deleteUser(999L);
 
         // Assert
         assertFalse(result);
-        verify(userRepository).existsById(999L);
+        verify(userRepository).findUsernameById(999L);
         verify(userRepository, never()).deleteById(anyLong());
+        verifyNoInteractions(subjectStatusHook);
+    }
+
+    @Test
+    void testLogout_ShouldDenyTokenIdUntilExpiration() {
+        // Arrange
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        when(jwtService.verify("token")).thenReturn(
+            new VerifiedToken("jti-1", "testuser", "ROLE_USER", Instant.now(), expiresAt));
+
+        // Act
+        authUserService.logout("token", null);
+
+        // Assert
+        verify(tokenDenyList).revoke("jti-1", expiresAt);
+        verifyNoInteractions(subjectStatusHook);
+    }
+
+    @Test
+    void testRevoke_WithUsername_ShouldRevokeAllTokensOfSubject() {
+        // Arrange
+        RevokeRequest request = new RevokeRequest();
+        request.setUsername("testuser");
+
+        // Act
+        authUserService.revoke(request);
+
+        // Assert
+        verify(subjectStatusHook).revoke("testuser");
+        verifyNoInteractions(jwtService, tokenDenyList);
+    }
+
+    @Test
+    void testRevoke_WithoutTokenOrUsername_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> authUserService.revoke(new RevokeRequest()));
+    }
+
+    @Test
+    void testRefresh_ShouldRotateTokenAndSignWithoutCheckingPassword() {
+        // Arrange
+        when(refreshTokenService.rotate("old-refresh"))
+            .thenReturn(new RefreshTokenService.Rotation("testuser", "new-refresh"));
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(testUser);
+        when(jwtService.generateToken(testUser)).thenReturn("jwt.token.here");
+        when(jwtService.getAccessTokenTtl()).thenReturn(Duration.ofMinutes(15));
+
+        // Act
+        AuthResponse response = authUserService.refresh("old-refresh");
+
+        // Assert
+        assertEquals("jwt.token.here", response.getToken());
+        assertEquals("new-refresh", response.getRefreshToken());
+        verifyNoInteractions(authenticationManager, passwordEncoder);
+    }
+
+    @Test
+    void testRefresh_AfterSubjectRevocationAndNewLogin_ShouldRotate() {
+        // Arrange: el usuario fue revocado y luego volvió a iniciar sesión
+        RevokeRequest revokeRequest = new RevokeRequest();
+        revokeRequest.setUsername("testuser");
+        authUserService.revoke(revokeRequest);
+        lenient().when(subjectStatusHook.isRevoked(eq("testuser"), any())).thenReturn(true);
+
+        when(refreshTokenService.rotate("refresh-after-login"))
+            .thenReturn(new RefreshTokenService.Rotation("testuser", "new-refresh"));
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(testUser);
+        when(jwtService.generateToken(testUser)).thenReturn("jwt.token.here");
+        when(jwtService.getAccessTokenTtl()).thenReturn(Duration.ofMinutes(15));
+
+        // Act
+        AuthResponse response = authUserService.refresh("refresh-after-login");
+
+        // Assert
+        assertEquals("jwt.token.here", response.getToken());
+        assertEquals("new-refresh", response.getRefreshToken());
+        verify(subjectStatusHook).revoke("testuser");
+        verify(refreshTokenService, times(1)).revokeAll("testuser");
     }
-}
\ No newline at end of file
+}
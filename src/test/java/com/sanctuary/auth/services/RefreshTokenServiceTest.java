@@ -0,0 +1,104 @@
+package com.sanctuary.auth.services;
+
+import com.sanctuary.auth.model.RefreshToken;
+import com.sanctuary.auth.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+
+    @Test
+    void testIssue_ShouldStoreOnlyTheDigest() {
+        // Act
+        String rawToken = refreshTokenService.issue("testuser");
+
+        // Assert
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertNotEquals(rawToken, saved.getValue().getTokenHash());
+        assertEquals(RefreshTokenService.digest(rawToken), saved.getValue().getTokenHash());
+        assertEquals("testuser", saved.getValue().getUsername());
+        assertNotNull(saved.getValue().getFamilyId());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    void testRotate_ShouldIssueNextTokenInSameFamily() {
+        // Arrange
+        RefreshToken current = token(1L, "family-1", null);
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.digest("raw"))).thenReturn(Optional.of(current));
+        when(refreshTokenRepository.markUsed(eq(1L), any(Instant.class))).thenReturn(1);
+
+        // Act
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("raw");
+
+        // Assert
+        assertEquals("testuser", rotation.getUsername());
+        assertNotEquals("raw", rotation.getRefreshToken());
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertEquals("family-1", saved.getValue().getFamilyId());
+        verify(refreshTokenRepository, never()).deleteFamily(anyString());
+    }
+
+    @Test
+    void testRotate_WhenTokenWasAlreadyUsed_ShouldRevokeWholeFamily() {
+        // Arrange
+        RefreshToken reused = token(1L, "family-1", Instant.now().minusSeconds(60));
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(reused));
+
+        // Act & Assert
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("raw"));
+        verify(refreshTokenRepository).deleteFamily("family-1");
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void testRotate_WhenConcurrentRequestWonTheUpdate_ShouldRevokeWholeFamily() {
+        // Arrange
+        RefreshToken current = token(1L, "family-1", null);
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(current));
+        when(refreshTokenRepository.markUsed(eq(1L), any(Instant.class))).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("raw"));
+        verify(refreshTokenRepository).deleteFamily("family-1");
+    }
+
+    @Test
+    void testRotate_WithUnknownToken_ShouldThrowException() {
+        // Arrange
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("raw"));
+    }
+
+    private static RefreshToken token(Long id, String familyId, Instant usedAt) {
+        RefreshToken token = new RefreshToken();
+        token.setId(id);
+        token.setFamilyId(familyId);
+        token.setUsername("testuser");
+        token.setExpiresAt(Instant.now().plusSeconds(3600));
+        token.setUsedAt(usedAt);
+        return token;
+    }
+}
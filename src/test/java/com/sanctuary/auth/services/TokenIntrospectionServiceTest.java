@@ -0,0 +1,130 @@
+package com.sanctuary.auth.services;
+
+import com.sanctuary.auth.dto.IntrospectionRequest;
+import com.sanctuary.auth.dto.TokenIntrospection;
+import com.sanctuary.auth.security.JwtService;
+import com.sanctuary.auth.security.SubjectStatusHook;
+import com.sanctuary.auth.security.TokenDenyList;
+import com.sanctuary.auth.security.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenIntrospectionServiceTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private TokenDenyList tokenDenyList;
+
+    @Mock
+    private SubjectStatusHook subjectStatusHook;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @InjectMocks
+    private TokenIntrospectionService introspectionService;
+
+    private final Instant issuedAt = Instant.now();
+    private final Instant expiresAt = issuedAt.plusSeconds(900);
+
+    @Test
+    void testIntrospect_ShouldReturnOneResultPerTokenInOrder() {
+        // Arrange
+        VerifiedToken valid = new VerifiedToken("jti-1", "testuser", "ROLE_USER", issuedAt, expiresAt);
+        when(jwtService.verify("valid")).thenReturn(valid);
+        when(jwtService.verify("expired")).thenThrow(new ExpiredJwtException(null, null, "expirado"));
+        when(jwtService.verify("garbage")).thenThrow(new MalformedJwtException("inválido"));
+
+        // Act
+        List<TokenIntrospection> results = introspectionService.introspect(request(false, "valid", "expired", "garbage", null));
+
+        // Assert
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isActive());
+        assertEquals("testuser", results.get(0).getSubject());
+        assertEquals("ROLE_USER", results.get(0).getRole());
+        assertEquals(expiresAt, results.get(0).getExpiresAt());
+        assertFalse(results.get(1).isActive());
+        assertNull(results.get(1).getSubject());
+        assertFalse(results.get(2).isActive());
+        assertFalse(results.get(3).isActive());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void testIntrospect_ShouldReportRevokedTokensAsInactive() {
+        // Arrange
+        when(jwtService.verify("denied")).thenReturn(new VerifiedToken("jti-1", "testuser", "ROLE_USER", issuedAt, expiresAt));
+        when(jwtService.verify("stale")).thenReturn(new VerifiedToken("jti-2", "other", "ROLE_USER", issuedAt, expiresAt));
+        when(tokenDenyList.isRevoked("jti-1")).thenReturn(true);
+        when(subjectStatusHook.isRevoked("other", issuedAt)).thenReturn(true);
+
+        // Act
+        List<TokenIntrospection> results = introspectionService.introspect(request(false, "denied", "stale"));
+
+        // Assert
+        assertFalse(results.get(0).isActive());
+        assertFalse(results.get(1).isActive());
+    }
+
+    @Test
+    void testIntrospect_WithCheckUser_ShouldRejectDeletedUser() {
+        // Arrange
+        VerifiedToken kept = new VerifiedToken("jti-1", "testuser", "ROLE_USER", issuedAt, expiresAt);
+        VerifiedToken deleted = new VerifiedToken("jti-2", "gone", "ROLE_USER", issuedAt, expiresAt);
+        UserDetails user = User.withUsername("testuser").password("unused").roles("USER").build();
+        when(jwtService.verify("kept")).thenReturn(kept);
+        when(jwtService.verify("deleted")).thenReturn(deleted);
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(user);
+        when(userDetailsService.loadUserByUsername("gone")).thenThrow(new UsernameNotFoundException("gone"));
+        when(jwtService.isTokenValid(kept, user)).thenReturn(true);
+
+        // Act
+        List<TokenIntrospection> results = introspectionService.introspect(request(true, "kept", "deleted"));
+
+        // Assert
+        assertTrue(results.get(0).isActive());
+        assertFalse(results.get(1).isActive());
+    }
+
+    @Test
+    void testIntrospect_ShouldRejectEmptyOrOversizedBatch() {
+        // Arrange
+        List<String> tooMany = new ArrayList<>(Collections.nCopies(TokenIntrospectionService.DEFAULT_MAX_TOKENS + 1, "token"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> introspectionService.introspect(request(false)));
+        assertThrows(IllegalArgumentException.class,
+            () -> introspectionService.introspect(request(false, tooMany.toArray(new String[0]))));
+        verify(jwtService, never()).verify(anyString());
+    }
+
+    private static IntrospectionRequest request(boolean checkUser, String... tokens) {
+        IntrospectionRequest request = new IntrospectionRequest();
+        request.setTokens(Arrays.asList(tokens));
+        request.setCheckUser(checkUser);
+        return request;
+    }
+}
@@ -0,0 +1,101 @@
+package com.sanctuary.auth.services;
+
+import com.sanctuary.auth.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserExistenceIndexTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserExistenceIndex existenceIndex;
+
+    @Test
+    void testExists_BeforeLoading_ShouldAskDatabase() throws Exception {
+        // Arrange
+        when(userRepository.existsByUsername("ana")).thenReturn(true);
+
+        // Act & Assert
+        assertFalse(existenceIndex.isReady());
+        assertTrue(existenceIndex.exists(UserExistenceIndex.Field.USERNAME, "ana"));
+        assertTrue(existenceIndex.mightContain(UserExistenceIndex.Field.EMAIL, "nadie@example.com"));
+        assertNull(existenceIndex.findDuplicate("ana", "ana@example.com", "1"));
+    }
+
+    @Test
+    void testExists_AfterLoading_ShouldAnswerFreeValuesWithoutDatabase() throws Exception {
+        // Arrange
+        loadRows(new String[] { "ana", "Ana@Example.com", "1" });
+
+        // Act & Assert
+        assertTrue(existenceIndex.isReady());
+        assertFalse(existenceIndex.exists(UserExistenceIndex.Field.USERNAME, "libre"));
+        assertFalse(existenceIndex.exists(UserExistenceIndex.Field.EMAIL, "libre@example.com"));
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void testFindDuplicate_AfterLoading_ShouldConfirmCandidateInDatabase() throws Exception {
+        // Arrange
+        loadRows(new String[] { "ana", "ana@example.com", "1" });
+        when(userRepository.existsByUsername("bob")).thenReturn(false);
+        when(userRepository.existsByEmail("ana@example.com")).thenReturn(true);
+        existenceIndex.add("bob", "bob@example.com", "2");
+
+        // Act
+        DuplicateUserException duplicate = existenceIndex.findDuplicate("bob", "ANA@example.com", "9");
+
+        // Assert
+        assertNotNull(duplicate);
+        assertEquals(DuplicateUserException.EMAIL, duplicate.getField());
+    }
+
+    @Test
+    void testRebuild_WhenScanFails_ShouldKeepFallingBackToDatabase() {
+        // Arrange
+        doThrow(new DataAccessResourceFailureException("sin conexión"))
+            .when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        // Act
+        existenceIndex.rebuild();
+
+        // Assert
+        assertFalse(existenceIndex.isReady());
+    }
+
+    // Simula el recorrido en streaming entregando las filas al callback
+    private void loadRows(String[]... rows) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (String[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString(1)).thenReturn(row[0]);
+                when(rs.getString(2)).thenReturn(row[1]);
+                when(rs.getString(3)).thenReturn(row[2]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        existenceIndex.rebuild();
+    }
+}
@@ -0,0 +1,104 @@
+package com.sanctuary.auth.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanctuary.auth.dto.UserShowRequest;
+import com.sanctuary.auth.model.Role;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserExportServiceTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<UserShowRequest> query;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private UserExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        UserShowRequest user1 = new UserShowRequest(1L, "testuser", "test@example.com", "12345", Role.USER);
+        UserShowRequest user2 = new UserShowRequest(2L, "Pérez, \"Juan\"", "juan@example.com", "67890", Role.ADMIN);
+
+        when(entityManager.createQuery(anyString(), eq(UserShowRequest.class))).thenReturn(query);
+        when(query.setHint(anyString(), any())).thenReturn(query);
+        when(query.getResultStream()).thenReturn(Stream.of(user1, user2));
+    }
+
+    @Test
+    void testExport_Ndjson_ShouldWriteOneObjectPerLine() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = exportService.export(UserExportService.Format.NDJSON, out);
+
+        // Assert
+        assertEquals(2, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"username\":\"testuser\""));
+        assertTrue(lines[1].startsWith("{\"id\":2,"));
+    }
+
+    @Test
+    void testExport_Ndjson_ShouldFlushOnlyEveryBatchOfRows() throws Exception {
+        // Arrange
+        when(query.getResultStream()).thenReturn(LongStream.rangeClosed(1, 1200)
+            .mapToObj(id -> new UserShowRequest(id, "user" + id, "user" + id + "@example.com", "" + id, Role.USER)));
+        AtomicInteger flushes = new AtomicInteger();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+
+        // Act
+        long count = exportService.export(UserExportService.Format.NDJSON, out);
+
+        // Assert: tras la primera fila, en las filas 500 y 1000 y al cerrar el generador
+        assertEquals(1200, count);
+        assertEquals(1200, out.toString(StandardCharsets.UTF_8).split("\n").length);
+        assertEquals(4, flushes.get());
+    }
+
+    @Test
+    void testExport_Csv_ShouldWriteHeaderAndEscapeFields() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = exportService.export(UserExportService.Format.CSV, out);
+
+        // Assert
+        assertEquals(2, count);
+        assertEquals("id,username,email,identificationNumber,role\n"
+                + "1,testuser,test@example.com,12345,USER\n"
+                + "2,\"Pérez, \"\"Juan\"\"\",juan@example.com,67890,ADMIN\n",
+            out.toString(StandardCharsets.UTF_8));
+    }
+}
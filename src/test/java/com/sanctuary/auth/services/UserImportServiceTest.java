@@ -0,0 +1,139 @@
+package com.sanctuary.auth.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanctuary.auth.cache.UserDirectoryVersion;
+import com.sanctuary.auth.dto.ImportReport;
+import com.sanctuary.auth.dto.ImportRowResult;
+import com.sanctuary.auth.model.AppUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private UserExistenceIndex existenceIndex;
+
+    @Mock
+    private UserDirectoryVersion directoryVersion;
+
+    @InjectMocks
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(passwordEncoder.encode(anyString())).thenAnswer(inv -> "hashed-" + inv.getArgument(0));
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void testImport_Json_ShouldInsertValidRowsInOneBatch() throws Exception {
+        // Arrange
+        String json = """
+            [{"username":"ana","email":"ana@example.com","identificationNumber":"1","password":"pw"},
+             {"username":"","email":"x@example.com","identificationNumber":"2","password":"pw"},
+             {"username":"root","email":"root@example.com","identificationNumber":"3","password":"pw","role":"admin"}]
+            """;
+
+        // Act
+        ImportReport report = importService.importUsers(stream(json), UserImportService.Format.JSON);
+
+        // Assert
+        assertEquals(3, report.getTotal());
+        assertEquals(2, report.getCreated());
+        assertEquals(1, report.getFailed());
+        List<ImportRowResult> rows = report.getRows();
+        assertEquals(ImportRowResult.Status.CREATED, rows.get(0).getStatus());
+        assertEquals(ImportRowResult.Status.INVALID, rows.get(1).getStatus());
+        assertEquals(ImportRowResult.Status.CREATED, rows.get(2).getStatus());
+        verify(jdbcTemplate).batchUpdate(anyString(), ArgumentMatchers.<List<AppUser>>argThat(users -> users.size() == 2),
+            eq(2), ArgumentMatchers.<ParameterizedPreparedStatementSetter<AppUser>>any());
+        verify(passwordEncoder, times(2)).encode("pw");
+        verify(existenceIndex).add("ana", "ana@example.com", "1");
+        verify(existenceIndex).add("root", "root@example.com", "3");
+    }
+
+    @Test
+    void testImport_Csv_ShouldReadColumnsByHeader() throws Exception {
+        // Arrange
+        String csv = "email,username,identificationNumber,password,role\n"
+            + "\"ana@example.com\",\"Pérez, Ana\",1,pw,\n"
+            + "bob@example.com,bob,2,pw,SUPERUSER\n";
+
+        // Act
+        ImportReport report = importService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        // Assert
+        assertEquals(2, report.getTotal());
+        assertEquals("Pérez, Ana", report.getRows().get(0).getUsername());
+        assertEquals(ImportRowResult.Status.CREATED, report.getRows().get(0).getStatus());
+        assertEquals(ImportRowResult.Status.INVALID, report.getRows().get(1).getStatus());
+        assertEquals("Rol desconocido.", report.getRows().get(1).getMessage());
+    }
+
+    @Test
+    void testImport_BatchFailure_ShouldReportDuplicatesRowByRow() throws Exception {
+        // Arrange
+        String json = """
+            [{"username":"ana","email":"ana@example.com","identificationNumber":"1","password":"pw"},
+             {"username":"bob","email":"bob@example.com","identificationNumber":"2","password":"pw"}]
+            """;
+        DataIntegrityViolationException duplicate = new DataIntegrityViolationException(
+            "Duplicate entry 'bob' for key 'uk_users_username'");
+        when(jdbcTemplate.batchUpdate(anyString(), ArgumentMatchers.<List<AppUser>>any(), anyInt(),
+                ArgumentMatchers.<ParameterizedPreparedStatementSetter<AppUser>>any()))
+            .thenThrow(duplicate);
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class)))
+            .thenReturn(1)
+            .thenThrow(duplicate);
+
+        // Act
+        ImportReport report = importService.importUsers(stream(json), UserImportService.Format.JSON);
+
+        // Assert
+        assertEquals(1, report.getCreated());
+        ImportRowResult failed = report.getRows().get(1);
+        assertEquals(ImportRowResult.Status.DUPLICATE, failed.getStatus());
+        assertEquals(DuplicateUserException.USERNAME, failed.getField());
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}